@@ -0,0 +1,86 @@
+package com.example.dashboard.benchmarks;
+
+import com.example.dashboard.DashboardGrid;
+import com.example.dashboard.GridItemConfig;
+import com.example.dashboard.GridLayout;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.html.Div;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-to-client sync: a server-side edit followed by the
+ * before-client-response flush that pushes it to the element properties.
+ * Runs against a UI without a session, so no network round-trip is
+ * included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DashboardGridSyncBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int itemCount;
+
+    @Param({"dense", "sparse"})
+    public String density;
+
+    private UI ui;
+
+    private DashboardGrid grid;
+
+    private GridItemConfig[] moves;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        GridLayout layout = LayoutFixtures.create(itemCount, density);
+        ui = new UI();
+        grid = new DashboardGrid(layout.getColumns(), layout.getRowHeight());
+        grid.setCompact(false);
+        grid.batch(g -> layout.getItems().forEach(item -> g.addItem(item.getId(), new Div(), item)));
+        ui.add(grid);
+        flush();
+
+        // Alternate one item between two rows so every sync carries a change
+        GridItemConfig item = layout.getItem(LayoutFixtures.itemId(itemCount / 2));
+        moves = new GridItemConfig[] {
+            GridItemConfig.at(item.getId(), item.getX(), item.getY() + 4, item.getW(), item.getH()),
+            GridItemConfig.at(item.getId(), item.getX(), item.getY(), item.getW(), item.getH())
+        };
+    }
+
+    @Benchmark
+    public String moveOneItem() {
+        grid.setItemConfig(moves[0].getId(), moves[next++ & 1]);
+        flush();
+        return grid.getElement().getProperty("layoutPatch");
+    }
+
+    @Benchmark
+    public String resyncAfterAttach() {
+        ui.remove(grid);
+        ui.add(grid);
+        flush();
+        return grid.getElement().getProperty("layoutData");
+    }
+
+    private void flush() {
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+    }
+}
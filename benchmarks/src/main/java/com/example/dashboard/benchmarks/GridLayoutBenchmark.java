@@ -0,0 +1,75 @@
+package com.example.dashboard.benchmarks;
+
+import com.example.dashboard.GridItemConfig;
+import com.example.dashboard.GridLayout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Layout model hot paths: placement of new items, deep copies and puts
+ * that trigger server-side compaction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridLayoutBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int itemCount;
+
+    @Param({"dense", "sparse"})
+    public String density;
+
+    private GridLayout layout;
+
+    private GridLayout compacting;
+
+    private GridItemConfig[] moves;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        layout = LayoutFixtures.create(itemCount, density);
+
+        compacting = layout.copy();
+        compacting.setCompact(true);
+
+        // Alternate one item between two rows so every put changes the layout
+        GridItemConfig item = compacting.getItem(LayoutFixtures.itemId(itemCount / 2));
+        moves = new GridItemConfig[] {
+            GridItemConfig.at(item.getId(), item.getX(), item.getY() + 4, item.getW(), item.getH()),
+            GridItemConfig.at(item.getId(), item.getX(), item.getY(), item.getW(), item.getH())
+        };
+    }
+
+    @Benchmark
+    public GridItemConfig findNextAvailablePosition() {
+        return layout.findNextAvailablePosition("new-item", 4, 3);
+    }
+
+    @Benchmark
+    public GridLayout copy() {
+        return layout.copy();
+    }
+
+    @Benchmark
+    public long putItemWithCompaction() {
+        compacting.putItem(moves[next++ & 1]);
+        return compacting.getRevision();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.dashboard.benchmarks;
+
+import com.example.dashboard.GridItemConfig;
+import com.example.dashboard.GridLayout;
+import com.example.dashboard.LayoutSerializer;
+import com.example.dashboard.LayoutSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory of the two item storages (OBJECTS and PACKED) on the paths that
+ * iterate all items: compaction on every put, JSON serialization and
+ * snapshots. Run with {@code -prof gc} and compare gc.alloc.rate.norm, the
+ * bytes allocated per operation.
+ *
+ * The heap retained by each layout is measured once per trial and printed,
+ * since allocation rates do not show what stays reachable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemStorageBenchmark {
+
+    @Param({"1000", "10000"})
+    public int itemCount;
+
+    @Param({"OBJECTS", "PACKED"})
+    public GridLayout.ItemStorage storage;
+
+    private GridLayout layout;
+
+    private GridItemConfig[] moves;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        long before = usedHeap();
+        layout = build();
+        long retained = usedHeap() - before;
+        System.out.printf("%n%s storage retains ~%d bytes per item (%d items)%n",
+                storage, retained / itemCount, itemCount);
+
+        // Alternate one item between two rows so every put compacts the layout
+        GridItemConfig item = layout.getItem(LayoutFixtures.itemId(itemCount / 2));
+        moves = new GridItemConfig[] {
+            GridItemConfig.at(item.getId(), item.getX(), item.getY() + 4, item.getW(), item.getH()),
+            GridItemConfig.at(item.getId(), item.getX(), item.getY(), item.getW(), item.getH())
+        };
+    }
+
+    /**
+     * Same items as the "dense" fixture, in a compacting layout of the given storage
+     */
+    private GridLayout build() {
+        GridLayout built = new GridLayout(LayoutFixtures.COLUMNS, 30, storage);
+        built.setCompact(false);
+        int perRow = LayoutFixtures.COLUMNS / 3;
+        for (int i = 0; i < itemCount; i++) {
+            built.putItem(GridItemConfig.at(LayoutFixtures.itemId(i), (i % perRow) * 3, (i / perRow) * 2, 3, 2));
+        }
+        built.setCompact(true);
+        return built;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Benchmark
+    public long putItemWithCompaction() {
+        layout.putItem(moves[next++ & 1]);
+        return layout.getRevision();
+    }
+
+    @Benchmark
+    public String toJson() {
+        return LayoutSerializer.toJson(layout);
+    }
+
+    @Benchmark
+    public LayoutSnapshot snapshotAfterPut() {
+        layout.putItem(moves[next++ & 1]);
+        return layout.getSnapshot();
+    }
+}
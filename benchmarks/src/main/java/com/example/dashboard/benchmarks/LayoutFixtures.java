@@ -0,0 +1,77 @@
+package com.example.dashboard.benchmarks;
+
+import com.example.dashboard.GridItemConfig;
+import com.example.dashboard.GridLayout;
+
+import java.util.Random;
+
+/**
+ * Deterministic layouts shared by the benchmarks.
+ *
+ * Densities:
+ * - "dense": 3x2 items packed row by row with no free cells
+ * - "sparse": items of random size (1-4 x 1-3) scattered with roughly half
+ *   of the cells left free, so placement queries find gaps early
+ */
+final class LayoutFixtures {
+
+    static final int COLUMNS = 12;
+
+    private static final long SEED = 42L;
+
+    private LayoutFixtures() {
+        // Utility class
+    }
+
+    /**
+     * Build a layout with the given number of items, without compaction so
+     * that the requested density is preserved
+     */
+    static GridLayout create(int itemCount, String density) {
+        GridLayout layout = new GridLayout(COLUMNS, 30);
+        layout.setCompact(false);
+
+        switch (density) {
+            case "dense":
+                fillDense(layout, itemCount);
+                break;
+            case "sparse":
+                fillSparse(layout, itemCount);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown density: " + density);
+        }
+        return layout;
+    }
+
+    static String itemId(int index) {
+        return "widget-" + index;
+    }
+
+    private static void fillDense(GridLayout layout, int itemCount) {
+        int perRow = COLUMNS / 3;
+        for (int i = 0; i < itemCount; i++) {
+            layout.putItem(GridItemConfig.at(itemId(i), (i % perRow) * 3, (i / perRow) * 2, 3, 2));
+        }
+    }
+
+    private static void fillSparse(GridLayout layout, int itemCount) {
+        Random random = new Random(SEED);
+        int placed = 0;
+        int y = 0;
+        while (placed < itemCount) {
+            int x = 0;
+            while (x < COLUMNS && placed < itemCount) {
+                int w = 1 + random.nextInt(4);
+                int h = 1 + random.nextInt(3);
+                if (x + w <= COLUMNS && random.nextBoolean()
+                        && layout.isAreaFree(x, y, w, h)) {
+                    layout.putItem(GridItemConfig.at(itemId(placed), x, y, w, h));
+                    placed++;
+                }
+                x += w;
+            }
+            y += 2;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.dashboard.benchmarks;
+
+import com.example.dashboard.GridItemConfig;
+import com.example.dashboard.GridLayout;
+import com.example.dashboard.LayoutBinaryCodec;
+import com.example.dashboard.LayoutSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization hot paths: autosave (toJson / writeJson), restore (fromJson),
+ * client updates (updateItemsFromJson) and the binary codec for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LayoutSerializerBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int itemCount;
+
+    @Param({"dense", "sparse"})
+    public String density;
+
+    private GridLayout layout;
+
+    private String json;
+
+    private byte[] bytes;
+
+    private ByteArrayOutputStream buffer;
+
+    /**
+     * Client payloads moving ~1% of the items away and back again
+     */
+    private String[] clientUpdates;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        layout = LayoutFixtures.create(itemCount, density);
+        json = LayoutSerializer.toJson(layout);
+        bytes = LayoutBinaryCodec.toBytes(layout);
+        buffer = new ByteArrayOutputStream(json.length());
+
+        GridLayout moved = new GridLayout();
+        GridLayout original = new GridLayout();
+        moved.setCompact(false);
+        original.setCompact(false);
+        int step = Math.min(100, itemCount);
+        for (int i = 0; i < itemCount; i += step) {
+            GridItemConfig item = layout.getItem(LayoutFixtures.itemId(i));
+            original.putItem(GridItemConfig.at(item.getId(), item.getX(), item.getY(), item.getW(), item.getH()));
+            moved.putItem(GridItemConfig.at(item.getId(), item.getX(), item.getY() + 1, item.getW(), item.getH()));
+        }
+        clientUpdates = new String[] {
+            LayoutSerializer.itemsToJson(moved),
+            LayoutSerializer.itemsToJson(original)
+        };
+    }
+
+    @Benchmark
+    public String toJson() {
+        return LayoutSerializer.toJson(layout);
+    }
+
+    @Benchmark
+    public int writeJsonToStream() {
+        buffer.reset();
+        LayoutSerializer.writeJson(layout, buffer);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public GridLayout fromJson() {
+        return LayoutSerializer.fromJson(json);
+    }
+
+    @Benchmark
+    public int updateItemsFromJson() {
+        return LayoutSerializer.updateItemsFromJson(layout, clientUpdates[next++ & 1]);
+    }
+
+    @Benchmark
+    public byte[] toBytes() {
+        return LayoutBinaryCodec.toBytes(layout);
+    }
+
+    @Benchmark
+    public GridLayout fromBytes() {
+        return LayoutBinaryCodec.fromBytes(bytes);
+    }
+}
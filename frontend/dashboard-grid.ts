@@ -7,8 +7,19 @@ import { LitElement, html, css, PropertyValues } from 'lit';
 import { customElement, property, state } from 'lit/decorators.js';
 import React from 'react';
 import ReactDOM from 'react-dom/client';
-import ReactGridWrapper from './react-grid-wrapper';
-import type { GridItemLayout, LayoutChangedDetail, ChangeReason } from './types';
+import ReactGridWrapper, { layoutsEqual } from './react-grid-wrapper';
+import type { GridItemLayout, LayoutChangedDetail, LayoutPatch, ChangeReason, ReactGridWrapperProps, VisibleRowsChangedDetail } from './types';
+
+const isIntermediate = (detail: LayoutChangedDetail): boolean =>
+  detail.isDragging || detail.isResizing;
+
+// Item margin and container padding of the React grid, in pixels
+const GRID_MARGIN = 10;
+const GRID_PADDING = 10;
+
+// How long to wait for the acknowledgement of an event before sending the
+// next one anyway, in case the server never processed it
+const ACK_TIMEOUT_MS = 5000;
 
 /**
  * Custom element for the dashboard grid
@@ -30,26 +41,65 @@ export class DashboardGrid extends LitElement {
   @property({ type: String })
   compactType: 'vertical' | 'horizontal' | null = 'vertical';
   
-  @property({ type: String })
-  layoutData = '[]';
+  // Structured JSON values set by the server, not strings to parse
+  @property({ type: Array })
+  layoutData: GridItemLayout[] = [];
   
   @property({ type: Number })
   revision = 0;
   
+  @property({ type: Object })
+  layoutPatch: LayoutPatch | null = null;
+  
+  // Client revision of the last layout-changed event processed by the server
+  @property({ type: Number })
+  ackedRevision = 0;
+  
+  // Which intermediate events the server listens for: 'acked' (all, each
+  // acknowledged), 'sampled' (throttled, so some never arrive) or 'none'
+  @property({ type: String })
+  intermediateEvents: 'acked' | 'sampled' | 'none' = 'acked';
+  
+  // Changed by the server whenever it replaces its intermediate event listener
+  @property({ type: Number })
+  intermediateEpoch = 0;
+  
+  // Report the visible rows so the server can attach only the content in view
+  @property({ type: Boolean })
+  virtualized = false;
+  
   // Internal state
   
-  @state()
+  // Current layout. Not reactive: changes made by dragging are already shown
+  // by React, and server changes are rendered explicitly in updated().
   private layout: GridItemLayout[] = [];
   
   @state()
   private clientRevision = 0;
   
+  // Server revision of the layout currently shown (-1 until the first snapshot)
+  private appliedRevision = -1;
+  
+  // Item positions as last known to the server, to send only what changed
+  private serverLayout = new Map<string, GridItemLayout>();
+  
+  // Flow control: client revision of the event awaiting acknowledgement
+  // (0 if none), and the latest change held back until it is acknowledged
+  private inFlightRevision = 0;
+  private inFlightIntermediate = false;
+  private pendingChange: LayoutChangedDetail | null = null;
+  private ackTimeout = 0;
+  
   private reactRoot: ReactDOM.Root | null = null;
   private reactContainer: HTMLDivElement | null = null;
   private resizeObserver: ResizeObserver | null = null;
   
-  // Suppress echo flag to prevent loops
-  _suppressEcho = false;
+  // Props of the last React render, to skip renders that change nothing
+  private renderedProps: ReactGridWrapperProps | null = null;
+  
+  // Last visible row range reported to the server, and the pending report frame
+  private visibleRows: [number, number] | null = null;
+  private visibleRowsFrame = 0;
   
   // Styles for the component
   static styles = css`
@@ -160,6 +210,11 @@ export class DashboardGrid extends LitElement {
       pointer-events: none;
     }
     
+    /* Item whose content is not attached while virtualized */
+    ::slotted([placeholder]) {
+      background: var(--lumo-contrast-5pct, #f5f5f5);
+    }
+    
     /* Accessibility: focus indicators */
     :host ::ng-deep .react-grid-item:focus-within {
       outline: 2px solid var(--lumo-primary-color, #1976d2);
@@ -171,17 +226,20 @@ export class DashboardGrid extends LitElement {
   constructor() {
     super();
     this.handleLayoutChange = this.handleLayoutChange.bind(this);
+    this.scheduleVisibleRows = this.scheduleVisibleRows.bind(this);
   }
   
   connectedCallback() {
     super.connectedCallback();
     
-    // Set up resize observer for responsive behavior
-    this.resizeObserver = new ResizeObserver(() => {
-      this.forceReactUpdate();
-    });
+    // The grid measures its own width (WidthProvider), so a resize only
+    // changes which rows are visible; that is reported once per frame
+    this.resizeObserver = new ResizeObserver(this.scheduleVisibleRows);
     
     this.resizeObserver.observe(this);
+    
+    // The host is the scroll container
+    this.addEventListener('scroll', this.scheduleVisibleRows, { passive: true });
   }
   
   disconnectedCallback() {
@@ -191,6 +249,7 @@ export class DashboardGrid extends LitElement {
     if (this.reactRoot) {
       this.reactRoot.unmount();
       this.reactRoot = null;
+      this.renderedProps = null;
     }
     
     // Clean up resize observer
@@ -198,13 +257,26 @@ export class DashboardGrid extends LitElement {
       this.resizeObserver.disconnect();
       this.resizeObserver = null;
     }
+    
+    this.removeEventListener('scroll', this.scheduleVisibleRows);
+    if (this.visibleRowsFrame) {
+      cancelAnimationFrame(this.visibleRowsFrame);
+      this.visibleRowsFrame = 0;
+    }
+    // A reconnected element reports its rows afresh
+    this.visibleRows = null;
+    
+    if (this.ackTimeout) {
+      clearTimeout(this.ackTimeout);
+      this.ackTimeout = 0;
+    }
   }
   
   protected firstUpdated(_changedProperties: PropertyValues): void {
     super.firstUpdated(_changedProperties);
     
-    // Parse initial layout
-    this.parseLayoutData();
+    // Apply initial layout
+    this.applyLayoutData();
     
     // Create React root
     this.reactContainer = this.shadowRoot!.getElementById('react-root') as HTMLDivElement;
@@ -217,61 +289,173 @@ export class DashboardGrid extends LitElement {
   protected updated(changedProperties: PropertyValues): void {
     super.updated(changedProperties);
     
-    // Re-parse layout if layoutData changed
-    if (changedProperties.has('layoutData')) {
-      this.parseLayoutData();
+    const previousLayout = this.layout;
+    
+    // A full snapshot arrived, or the server acknowledged our last drag or
+    // resize: either way we now hold this revision. Outgoing events carry it,
+    // so the server can tell which of its changes we had seen.
+    if (changedProperties.has('layoutData') || changedProperties.has('revision')) {
+      if (changedProperties.has('layoutData')) {
+        this.applyLayoutData();
+      }
+      this.appliedRevision = this.revision;
     }
     
-    // Re-render React on any property change
+    // Apply incremental changes on top of the current layout
+    if (changedProperties.has('layoutPatch') && this.layoutPatch) {
+      this.applyLayoutPatch();
+    }
+    
+    // Re-render React on any property or server layout change
     if (
       changedProperties.has('columns') ||
       changedProperties.has('rowHeight') ||
       changedProperties.has('compact') ||
       changedProperties.has('compactType') ||
-      changedProperties.has('layout')
+      this.layout !== previousLayout
     ) {
       this.renderReact();
     }
+    
+    // The server processed our event in flight: send what was held back
+    if (changedProperties.has('ackedRevision') && this.ackedRevision >= this.inFlightRevision) {
+      this.releaseInFlight();
+    }
+    
+    // An intermediate event in flight while the server replaced its listener
+    // may have reached none, and then no acknowledgement will come
+    if (
+      this.inFlightIntermediate &&
+      (changedProperties.has('intermediateEvents') || changedProperties.has('intermediateEpoch'))
+    ) {
+      this.releaseInFlight();
+    }
+    
+    if (changedProperties.has('virtualized') || changedProperties.has('rowHeight')) {
+      this.visibleRows = null;
+      this.scheduleVisibleRows();
+    }
+  }
+  
+  /**
+   * Report the visible rows once per animation frame, however often the
+   * host is scrolled or resized in between
+   */
+  private scheduleVisibleRows(): void {
+    if (!this.virtualized || this.visibleRowsFrame) {
+      return;
+    }
+    this.visibleRowsFrame = requestAnimationFrame(() => {
+      this.visibleRowsFrame = 0;
+      this.reportVisibleRows();
+    });
+  }
+  
+  /**
+   * Compute the grid rows within the scroll viewport from the row height,
+   * margin and container padding used by the React grid, and tell the
+   * server if they changed
+   */
+  private reportVisibleRows(): void {
+    if (!this.virtualized) {
+      return;
+    }
+    const pitch = this.rowHeight + GRID_MARGIN;
+    const top = Math.max(0, this.scrollTop - GRID_PADDING);
+    const bottom = Math.max(top, this.scrollTop + this.clientHeight - GRID_PADDING);
+    const firstRow = Math.floor(top / pitch);
+    const lastRow = Math.floor(bottom / pitch);
+    
+    if (this.visibleRows && this.visibleRows[0] === firstRow && this.visibleRows[1] === lastRow) {
+      return;
+    }
+    this.visibleRows = [firstRow, lastRow];
+    const detail: VisibleRowsChangedDetail = { firstRow, lastRow };
+    this.dispatchEvent(new CustomEvent('visible-rows-changed', { detail }));
   }
   
   /**
-   * Parse layout data from JSON string
+   * Take over a full layout snapshot from the server
    */
-  private parseLayoutData(): void {
-    try {
-      const parsed = JSON.parse(this.layoutData || '[]');
-      this.layout = Array.isArray(parsed) ? parsed : [];
-    } catch (error) {
-      console.error('Failed to parse layout data:', error);
-      this.layout = [];
+  private applyLayoutData(): void {
+    const data = Array.isArray(this.layoutData) ? this.layoutData : [];
+    if (!layoutsEqual(this.layout, data)) {
+      this.layout = data;
     }
+    this.serverLayout = new Map(data.map((item) => [item.i, item]));
   }
   
   /**
-   * Render the React component
+   * Apply a server patch to the current layout. Patches are cumulative from
+   * their base revision, so any patch based on a revision we already have can
+   * be applied; a newer base means we missed one and need a full snapshot.
+   */
+  private applyLayoutPatch(): void {
+    const patch = this.layoutPatch!;
+    
+    if (patch.revision <= this.appliedRevision) {
+      return; // Already covered by a newer snapshot
+    }
+    
+    if (patch.base > this.appliedRevision) {
+      this.dispatchEvent(new CustomEvent('layout-resync'));
+      return;
+    }
+    
+    const updates = new Map(patch.items.map((item) => [item.i, item]));
+    const removed = new Set(patch.removed);
+    
+    updates.forEach((item, id) => this.serverLayout.set(id, item));
+    removed.forEach((id) => this.serverLayout.delete(id));
+    
+    const next: GridItemLayout[] = [];
+    for (const item of this.layout) {
+      if (removed.has(item.i)) {
+        continue;
+      }
+      const updated = updates.get(item.i);
+      next.push(updated ?? item);
+      updates.delete(item.i);
+    }
+    // Whatever is left was added
+    updates.forEach((item) => next.push(item));
+    
+    if (!layoutsEqual(this.layout, next)) {
+      this.layout = next;
+    }
+    this.appliedRevision = patch.revision;
+  }
+  
+  /**
+   * Render the React component, unless it was last rendered with equal props
    */
   private renderReact(): void {
     if (!this.reactRoot || !this.reactContainer) {
       return;
     }
     
-    const reactElement = React.createElement(ReactGridWrapper, {
+    const props: ReactGridWrapperProps = {
       layout: this.layout,
       columns: this.columns,
       rowHeight: this.rowHeight,
       compact: this.compact,
       compactType: this.compactType,
       onLayoutChange: this.handleLayoutChange,
-    });
+    };
+    const rendered = this.renderedProps;
+    if (
+      rendered &&
+      layoutsEqual(rendered.layout, props.layout) &&
+      rendered.columns === props.columns &&
+      rendered.rowHeight === props.rowHeight &&
+      rendered.compact === props.compact &&
+      rendered.compactType === props.compactType
+    ) {
+      return;
+    }
     
-    this.reactRoot.render(reactElement);
-  }
-  
-  /**
-   * Force React to re-render (used for resize events)
-   */
-  private forceReactUpdate(): void {
-    this.renderReact();
+    this.renderedProps = props;
+    this.reactRoot.render(React.createElement(ReactGridWrapper, props));
   }
   
   /**
@@ -284,27 +468,88 @@ export class DashboardGrid extends LitElement {
     isDragging: boolean,
     isResizing: boolean
   ): void {
-    // Skip if this is an echo from server update
-    if (this._suppressEcho) {
-      return;
+    // React already shows this layout, so it is not rendered again; a server
+    // change is compared against it
+    this.layout = newLayout;
+    if (this.renderedProps) {
+      this.renderedProps = { ...this.renderedProps, layout: newLayout };
     }
     
-    // Update client revision
-    this.clientRevision++;
-    
-    // Update local layout state
-    this.layout = newLayout;
+    // Only ship items whose position or size differs from the server's view.
+    // Final events are sent even when empty so the server sees the drag end.
+    // Intermediate events may be throttled or filtered out before they reach
+    // the server (see IntermediateEventPolicy), so only a final event counts
+    // as delivered: it carries everything changed since the previous one.
+    const intermediate = isDragging || isResizing;
+    if (intermediate && this.intermediateEvents === 'none') {
+      return; // Not listened for on the server
+    }
+    const changed = this.changedSinceServer(newLayout);
+    if (!intermediate) {
+      changed.forEach((item) => this.serverLayout.set(item.i, item));
+    }
     
-    // Dispatch custom event to notify Vaadin
-    const detail: LayoutChangedDetail = {
-      items: newLayout,
+    // Revisions are assigned when the event is actually sent
+    this.queueChange({
+      items: changed,
       itemId,
       reason,
       isDragging,
       isResizing,
-      revision: this.clientRevision,
-    };
+      revision: 0,
+      serverRevision: 0,
+    });
+  }
+  
+  /**
+   * Hold a change in the pending slot, latest wins, and send it right away
+   * unless an earlier event still awaits acknowledgement. This bounds the
+   * number of requests by how fast the server processes them rather than
+   * by how fast the user drags.
+   */
+  private queueChange(detail: LayoutChangedDetail): void {
+    const pending = this.pendingChange;
+    if (pending && !isIntermediate(pending)) {
+      if (isIntermediate(detail)) {
+        // The pending final change must not be lost; the next final one
+        // will carry the positions of this intermediate change as well
+        return;
+      }
+      // Both final: each holds only what changed since the one before
+      const items = new Map(pending.items.map((item) => [item.i, item]));
+      detail.items.forEach((item) => items.set(item.i, item));
+      detail.items = Array.from(items.values());
+    }
+    this.pendingChange = detail;
+    this.sendPendingChange();
+  }
+  
+  private sendPendingChange(): void {
+    const detail = this.pendingChange;
+    if (!detail || this.inFlightRevision) {
+      return;
+    }
+    this.pendingChange = null;
+    
+    this.clientRevision++;
+    detail.revision = this.clientRevision;
+    detail.serverRevision = this.appliedRevision;
+    
+    // Throttled intermediate events may be dropped on the way, so only
+    // wait for the acknowledgement of events that are sure to arrive
+    if (!isIntermediate(detail) || this.intermediateEvents === 'acked') {
+      const revision = detail.revision;
+      this.inFlightRevision = revision;
+      this.inFlightIntermediate = isIntermediate(detail);
+      this.ackTimeout = window.setTimeout(() => {
+        this.ackTimeout = 0;
+        if (this.inFlightRevision === revision) {
+          this.releaseInFlight();
+        }
+      }, ACK_TIMEOUT_MS);
+    }
     
+    // Dispatch custom event to notify Vaadin
     this.dispatchEvent(
       new CustomEvent('layout-changed', {
         detail,
@@ -314,6 +559,35 @@ export class DashboardGrid extends LitElement {
     );
   }
   
+  /**
+   * Stop waiting for the event in flight and send what was held back
+   */
+  private releaseInFlight(): void {
+    if (this.ackTimeout) {
+      clearTimeout(this.ackTimeout);
+      this.ackTimeout = 0;
+    }
+    this.inFlightRevision = 0;
+    this.inFlightIntermediate = false;
+    this.sendPendingChange();
+  }
+  
+  /**
+   * Items whose geometry differs from the last state known to the server
+   */
+  private changedSinceServer(layout: GridItemLayout[]): GridItemLayout[] {
+    return layout.filter((item) => {
+      const known = this.serverLayout.get(item.i);
+      return (
+        !known ||
+        known.x !== item.x ||
+        known.y !== item.y ||
+        known.w !== item.w ||
+        known.h !== item.h
+      );
+    });
+  }
+  
   /**
    * Render the Lit template
    */
@@ -3,7 +3,7 @@
  * Handles the grid layout and integrates with slotted Vaadin components
  */
 
-import React, { useCallback, useRef, useState, useEffect } from 'react';
+import React, { useCallback, useRef, useState, useEffect, useMemo, memo } from 'react';
 import GridLayout, { WidthProvider, Layout } from 'react-grid-layout';
 import type { GridItemLayout, ReactGridWrapperProps, ChangeReason } from './types';
 
@@ -14,6 +14,54 @@ import 'react-resizable/css/styles.css';
 // Wrap GridLayout with WidthProvider for responsive width
 const ResponsiveGridLayout = WidthProvider(GridLayout);
 
+// Item margin and container padding, shared so the grid sees unchanged props
+const GRID_SPACING: [number, number] = [10, 10];
+
+/**
+ * Check if two layout items have the same geometry and constraints
+ */
+const sameItem = (a: GridItemLayout, b: GridItemLayout): boolean =>
+  a === b ||
+  (a.i === b.i &&
+    a.x === b.x &&
+    a.y === b.y &&
+    a.w === b.w &&
+    a.h === b.h &&
+    a.minW === b.minW &&
+    a.minH === b.minH &&
+    a.maxW === b.maxW &&
+    a.maxH === b.maxH &&
+    a.static === b.static &&
+    a.isDraggable === b.isDraggable &&
+    a.isResizable === b.isResizable);
+
+/**
+ * Check if two layouts hold equal items in the same order, so one can stand
+ * in for the other without rendering anything
+ */
+export const layoutsEqual = (a: GridItemLayout[], b: GridItemLayout[]): boolean =>
+  a === b || (a.length === b.length && a.every((item, index) => sameItem(item, b[index])));
+
+/**
+ * Convert react-grid-layout Layout[] to our GridItemLayout[]
+ */
+const convertLayout = (layout: Layout[]): GridItemLayout[] => {
+  return layout.map((item) => ({
+    i: item.i,
+    x: item.x,
+    y: item.y,
+    w: item.w,
+    h: item.h,
+    minW: item.minW,
+    minH: item.minH,
+    maxW: item.maxW,
+    maxH: item.maxH,
+    static: item.static,
+    isDraggable: item.isDraggable,
+    isResizable: item.isResizable,
+  }));
+};
+
 /**
  * Individual grid item component that renders a slot for Vaadin content
  */
@@ -26,6 +74,27 @@ const GridItem: React.FC<{ id: string }> = ({ id }) => {
   );
 };
 
+/**
+ * Drag handle and content of a grid item. Only depends on the item ID, so
+ * it is not rendered again when the item moves or is resized: position and
+ * size are applied by react-grid-layout on the wrapping element.
+ */
+const GridItemFrame = memo<{ id: string }>(({ id }) => (
+  <>
+    {/* Drag handle for accessibility and better control */}
+    <div className="drag-handle" role="button" tabIndex={0} aria-label={`Drag ${id}`}>
+      <svg width="24" height="24" viewBox="0 0 24 24" fill="currentColor">
+        <path d="M9 3h2v2H9V3zm0 4h2v2H9V7zm0 4h2v2H9v-2zm0 4h2v2H9v-2zm0 4h2v2H9v-2zm4-16h2v2h-2V3zm0 4h2v2h-2V7zm0 4h2v2h-2v-2zm0 4h2v2h-2v-2zm0 4h2v2h-2v-2z"/>
+      </svg>
+    </div>
+    
+    {/* Content area with slot for Vaadin component */}
+    <div className="grid-item-content">
+      <GridItem id={id} />
+    </div>
+  </>
+));
+
 /**
  * Main React grid wrapper component
  */
@@ -43,9 +112,10 @@ const ReactGridWrapper: React.FC<ReactGridWrapperProps> = ({
   const currentItemRef = useRef<string | null>(null);
   const throttleTimerRef = useRef<NodeJS.Timeout | null>(null);
   
-  // Update local layout when props change (from server)
+  // Update local layout when props change (from server), keeping the
+  // current array when nothing differs so the grid is not rendered again
   useEffect(() => {
-    setLocalLayout(layout);
+    setLocalLayout((current) => (layoutsEqual(current, layout) ? current : layout));
   }, [layout]);
   
   /**
@@ -98,7 +168,8 @@ const ReactGridWrapper: React.FC<ReactGridWrapperProps> = ({
    */
   const handleLayoutChange = useCallback(
     (newLayout: Layout[]) => {
-      setLocalLayout(convertLayout(newLayout));
+      const converted = convertLayout(newLayout);
+      setLocalLayout((current) => (layoutsEqual(current, converted) ? current : converted));
       
       // Send intermediate update if dragging or resizing
       if (isDraggingRef.current || isResizingRef.current) {
@@ -168,24 +239,20 @@ const ReactGridWrapper: React.FC<ReactGridWrapperProps> = ({
   );
   
   /**
-   * Convert react-grid-layout Layout[] to our GridItemLayout[]
+   * Children only change when items are added, removed or reordered.
+   * Positions come from the layout prop, so a drag frame hands the grid the
+   * same children array and it only updates the moved items' styles.
    */
-  const convertLayout = (layout: Layout[]): GridItemLayout[] => {
-    return layout.map((item) => ({
-      i: item.i,
-      x: item.x,
-      y: item.y,
-      w: item.w,
-      h: item.h,
-      minW: item.minW,
-      minH: item.minH,
-      maxW: item.maxW,
-      maxH: item.maxH,
-      static: item.static,
-      isDraggable: item.isDraggable,
-      isResizable: item.isResizable,
-    }));
-  };
+  const itemIds = localLayout.map((item) => item.i).join('\n');
+  const children = useMemo(
+    () =>
+      localLayout.map((item) => (
+        <div key={item.i} className="grid-item-wrapper">
+          <GridItemFrame id={item.i} />
+        </div>
+      )),
+    [itemIds]
+  );
   
   return (
     <ResponsiveGridLayout
@@ -193,7 +260,8 @@ const ReactGridWrapper: React.FC<ReactGridWrapperProps> = ({
       layout={localLayout as Layout[]}
       cols={columns}
       rowHeight={rowHeight}
-      compactType={compactType || 'vertical'}
+      // Mirrors GridLayout's server-side compaction: none unless compact is set
+      compactType={compact ? compactType || 'vertical' : null}
       preventCollision={!compact}
       onLayoutChange={handleLayoutChange}
       onDragStart={handleDragStart}
@@ -201,47 +269,17 @@ const ReactGridWrapper: React.FC<ReactGridWrapperProps> = ({
       onResizeStart={handleResizeStart}
       onResizeStop={handleResizeStop}
       draggableHandle=".drag-handle"
-      margin={[10, 10]}
-      containerPadding={[10, 10]}
+      margin={GRID_SPACING}
+      containerPadding={GRID_SPACING}
       useCSSTransforms={true}
       // Accessibility features
       transformScale={1}
       // Performance optimizations
       isBounded={false}
     >
-      {localLayout.map((item) => (
-        <div
-          key={item.i}
-          data-grid={{
-            x: item.x,
-            y: item.y,
-            w: item.w,
-            h: item.h,
-            minW: item.minW,
-            minH: item.minH,
-            maxW: item.maxW,
-            maxH: item.maxH,
-            static: item.static,
-            isDraggable: item.isDraggable !== false,
-            isResizable: item.isResizable !== false,
-          }}
-          className="grid-item-wrapper"
-        >
-          {/* Drag handle for accessibility and better control */}
-          <div className="drag-handle" role="button" tabIndex={0} aria-label={`Drag ${item.i}`}>
-            <svg width="24" height="24" viewBox="0 0 24 24" fill="currentColor">
-              <path d="M9 3h2v2H9V3zm0 4h2v2H9V7zm0 4h2v2H9v-2zm0 4h2v2H9v-2zm0 4h2v2H9v-2zm4-16h2v2h-2V3zm0 4h2v2h-2V7zm0 4h2v2h-2v-2zm0 4h2v2h-2v-2zm0 4h2v2h-2v-2z"/>
-            </svg>
-          </div>
-          
-          {/* Content area with slot for Vaadin component */}
-          <div className="grid-item-content">
-            <GridItem id={item.i} />
-          </div>
-        </div>
-      ))}
+      {children}
     </ResponsiveGridLayout>
   );
 };
 
-export default ReactGridWrapper;
+export default memo(ReactGridWrapper);
@@ -51,7 +51,7 @@ export interface GridItemLayout {
  * Complete layout configuration
  */
 export interface DashboardLayout {
-  /** Layout revision number (for echo suppression) */
+  /** Layout revision number (acknowledged back in layout-changed events) */
   revision: number;
   
   /** Number of columns in the grid */
@@ -70,6 +70,23 @@ export interface DashboardLayout {
   items: GridItemLayout[];
 }
 
+/**
+ * Incremental layout update pushed by the server (layoutPatch property)
+ */
+export interface LayoutPatch {
+  /** Revision the patch applies on top of */
+  base: number;
+  
+  /** Revision reached after applying the patch */
+  revision: number;
+  
+  /** Added or updated items */
+  items: GridItemLayout[];
+  
+  /** IDs of removed items */
+  removed: string[];
+}
+
 /**
  * Reason for layout change
  */
@@ -79,7 +96,7 @@ export type ChangeReason = 'DRAG' | 'RESIZE' | 'SERVER_UPDATE' | 'UNKNOWN';
  * Event detail for layout-changed event
  */
 export interface LayoutChangedDetail {
-  /** Updated items array */
+  /** Items whose position or size changed since the last update sent to the server */
   items: GridItemLayout[];
   
   /** ID of the item that changed (may be null for bulk updates) */
@@ -96,6 +113,20 @@ export interface LayoutChangedDetail {
   
   /** Client-side revision number */
   revision: number;
+  
+  /** Last server layout revision applied by the client */
+  serverRevision: number;
+}
+
+/**
+ * Event detail for visible-rows-changed event (sent while virtualized)
+ */
+export interface VisibleRowsChangedDetail {
+  /** First grid row within the viewport */
+  firstRow: number;
+  
+  /** Last grid row within the viewport */
+  lastRow: number;
 }
 
 /**
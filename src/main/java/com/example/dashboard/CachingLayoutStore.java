@@ -0,0 +1,107 @@
+package com.example.dashboard;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Write-through {@link LayoutCache} in front of another {@link LayoutStore}.
+ *
+ * A stored layout is decoded once and then served from the cache: every
+ * {@link #load} returns a new mutable copy of the shared, immutable cached
+ * layout, so popular layouts such as shared dashboard templates are not
+ * parsed again for each session. Saves go to the underlying store first
+ * and then replace the cached layout. The cache is only kept consistent if
+ * all writes to the underlying store go through this instance.
+ */
+public final class CachingLayoutStore implements LayoutStore {
+
+    private static final int LOCK_STRIPES = 32;
+
+    private final LayoutStore delegate;
+    private final LayoutCache cache;
+
+    /**
+     * Serialize loads and writes of the same key, so a layout is loaded
+     * once on concurrent misses and a load never caches a stale layout
+     */
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * Create a caching store with a cache of the default size
+     */
+    public CachingLayoutStore(LayoutStore delegate) {
+        this(delegate, new LayoutCache());
+    }
+
+    /**
+     * Create a caching store
+     *
+     * @param delegate The store holding the layouts
+     * @param cache The cache to use, which may be shared for statistics
+     */
+    public CachingLayoutStore(LayoutStore delegate, LayoutCache cache) {
+        this.delegate = Objects.requireNonNull(delegate, "Store must not be null");
+        this.cache = Objects.requireNonNull(cache, "Cache must not be null");
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public LayoutCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public void save(LayoutKey key, LayoutSnapshot snapshot) throws IOException {
+        synchronized (lockFor(key)) {
+            try {
+                delegate.save(key, snapshot);
+            } catch (IOException | RuntimeException e) {
+                // The stored state is unknown now
+                cache.invalidate(key);
+                throw e;
+            }
+            cache.put(key, snapshot);
+        }
+    }
+
+    @Override
+    public GridLayout load(LayoutKey key) throws IOException {
+        LayoutSnapshot cached = cache.get(key);
+        if (cached == null) {
+            synchronized (lockFor(key)) {
+                cached = cache.peek(key);
+                if (cached == null) {
+                    GridLayout loaded = delegate.load(key);
+                    if (loaded == null) {
+                        return null;
+                    }
+                    cached = loaded.getSnapshot();
+                    cache.put(key, cached);
+                }
+            }
+        }
+        return cached.toGridLayout();
+    }
+
+    @Override
+    public List<LayoutKey> list(String user) throws IOException {
+        return delegate.list(user);
+    }
+
+    @Override
+    public boolean delete(LayoutKey key) throws IOException {
+        synchronized (lockFor(key)) {
+            try {
+                return delegate.delete(key);
+            } finally {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    private Object lockFor(LayoutKey key) {
+        return locks[Math.floorMod(key.hashCode(), locks.length)];
+    }
+}
@@ -3,11 +3,18 @@ package com.example.dashboard;
 import com.vaadin.flow.component.*;
 import com.vaadin.flow.component.dependency.JsModule;
 import com.vaadin.flow.component.dependency.NpmPackage;
+import com.vaadin.flow.dom.DomEvent;
+import com.vaadin.flow.dom.DomListenerRegistration;
 import com.vaadin.flow.dom.Element;
+import com.vaadin.flow.function.SerializableConsumer;
+import com.vaadin.flow.function.SerializableFunction;
+import com.vaadin.flow.function.SerializableSupplier;
 import com.vaadin.flow.shared.Registration;
+import elemental.json.JsonArray;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 /**
  * A production-ready Vaadin Flow component that wraps react-grid-layout
@@ -26,11 +33,9 @@ import java.util.concurrent.ConcurrentHashMap;
  * grid.addItem("field1", field, GridItemConfig.at("field1", 4, 0, 4, 3));
  * 
  * grid.addLayoutChangeListener(event -> {
- *     if (event.isFinal()) {
- *         // Save layout to database
- *         saveLayout(event.getLayout());
- *     }
- * });
+ *     // Save layout to database
+ *     saveLayout(event.getLayout());
+ * }, DashboardGrid.EventMode.FINAL_ONLY);
  * </pre>
  */
 @Tag("dashboard-grid")
@@ -41,27 +46,152 @@ import java.util.concurrent.ConcurrentHashMap;
 @JsModule("./dashboard-grid.ts")
 public class DashboardGrid extends Component implements HasSize, HasStyle {
     
+    /**
+     * Client-side filter matching layout-changed events sent while a drag or resize is in progress
+     */
+    static final String INTERMEDIATE_FILTER = "(event.detail.isDragging || event.detail.isResizing)";
+    
+    /**
+     * Client-side filter matching layout-changed events sent when a drag or resize ends
+     */
+    static final String FINAL_FILTER = "!" + INTERMEDIATE_FILTER;
+    
+    /**
+     * Default cap on the number of item changes kept for undo/redo
+     */
+    public static final int DEFAULT_HISTORY_LIMIT = 1000;
+    
+    /**
+     * Default number of rows above and below the visible rows whose item
+     * content stays attached when virtualization is enabled
+     */
+    public static final int DEFAULT_OVERSCAN_ROWS = 10;
+    
+    /**
+     * Rows an item may extend to when positioned by the client. Positions
+     * reported by the client are clamped to this and to the grid columns.
+     */
+    static final int MAX_CLIENT_ROWS = 100_000;
+    
     private final GridLayout layout;
     private final Map<String, Component> itemComponents = new ConcurrentHashMap<>();
+    
+    /**
+     * Content of items added with a supplier that has not been created yet
+     */
+    private final Map<String, LazyItemContent> lazyContent = new HashMap<>();
+    
+    /**
+     * Slot wrapper element of each item, including items whose content is
+     * not created yet
+     */
+    private final Map<String, Element> itemWrappers = new HashMap<>();
     private long lastClientRevision = 0;
-    private boolean suppressEcho = false;
+    
+    /**
+     * Layout revision the client holds once the last flushed response is
+     * delivered. Patches are computed relative to this revision.
+     */
+    private long clientBaseRevision = -1;
+    
+    /**
+     * Revision of the last snapshot or patch pushed with server-side changes.
+     * A client event tagged with an older server revision was made without
+     * seeing those changes.
+     */
+    private long pushedRevision = -1;
+    
+    /**
+     * Revision reached by applying client changes on top of clientBaseRevision,
+     * with no server-side change in between, or -1
+     */
+    private long clientEditRevision = -1;
+    
+    /**
+     * Revision of the last full snapshot pushed to the client
+     */
+    private long snapshotRevision = -1;
+    
+    /**
+     * Revision of the last patch that changed each item
+     */
+    private final Map<String, Long> patchedAt = new HashMap<>();
+    
+    private boolean fullSyncRequired = true;
+    private boolean flushScheduled = false;
+    
+    /**
+     * Nesting depth of batch() calls; syncs are deferred while positive
+     */
+    private int batchDepth = 0;
+    private boolean syncDeferred = false;
+    
+    private IntermediateEventPolicy intermediateEventPolicy = IntermediateEventPolicy.all();
+    
+    /**
+     * Listener for intermediate events; null when the policy does not receive them
+     */
+    private DomListenerRegistration intermediateRegistration;
+    private long lastIntermediateDelivery;
+    
+    /**
+     * Number of layout change listeners registered for {@link EventMode#ALL}.
+     * While there are none, the client does not send intermediate events.
+     */
+    private int intermediateSubscribers = 0;
+    
+    /**
+     * Incremented whenever the intermediate listener is replaced. An event in
+     * flight at that moment may reach no listener and is never acknowledged,
+     * so the client stops waiting for it when this changes.
+     */
+    private int intermediateEpoch = 0;
+    
+    /**
+     * Intermediate events held back until the end of the round-trip (LATEST_PER_ITEM)
+     */
+    private final Map<String, LayoutChangeEvent> pendingIntermediateEvents = new LinkedHashMap<>();
+    
+    /**
+     * Whether items were added or removed since the last history checkpoint,
+     * which starts the undo history afresh
+     */
+    private boolean historyBarrier = false;
+    
+    private boolean virtualized = false;
+    private int overscanRows = DEFAULT_OVERSCAN_ROWS;
+    
+    /**
+     * Grid rows shown in the client's viewport, as last reported. Until the
+     * client reports, only the top of the grid is assumed visible.
+     */
+    private int firstVisibleRow = 0;
+    private int lastVisibleRow = 0;
+    
+    /**
+     * Items found in view when last checked, so that only these and the
+     * items now in view need to be looked at when the view changes
+     */
+    private final Set<String> itemsInView = new HashSet<>();
     
     /**
      * Create a new dashboard grid with default settings (12 columns, 30px row height)
      */
     public DashboardGrid() {
-        this(new GridLayout());
+        this(withDefaultHistory(new GridLayout()));
     }
     
     /**
      * Create a dashboard grid with specific column and row height settings
      */
     public DashboardGrid(int columns, int rowHeight) {
-        this(new GridLayout(columns, rowHeight));
+        this(withDefaultHistory(new GridLayout(columns, rowHeight)));
     }
     
     /**
-     * Create a dashboard grid with an existing layout
+     * Create a dashboard grid with an existing layout. Its history limit and
+     * recorded history are kept as they are; undo is only available if the
+     * layout has history enabled.
      */
     public DashboardGrid(GridLayout layout) {
         this.layout = Objects.requireNonNull(layout, "Layout must not be null");
@@ -76,10 +206,29 @@ public class DashboardGrid extends Component implements HasSize, HasStyle {
         // Setup client-to-server communication
         setupClientListeners();
         
+        // A (re)attached client starts from scratch and needs a full snapshot
+        addAttachListener(event -> {
+            fullSyncRequired = true;
+            lastClientRevision = 0;
+            acknowledgeClientRevision();
+            syncLayoutToClient();
+            
+            // Background loading of lazy content waits for a UI to hand over to
+            updateAttachedContent();
+        });
+        
+        // A pending flush is dropped by the framework when the grid is detached
+        addDetachListener(event -> flushScheduled = false);
+        
         // Sync initial layout to client
         syncLayoutToClient();
     }
     
+    private static GridLayout withDefaultHistory(GridLayout layout) {
+        layout.setHistoryLimit(DEFAULT_HISTORY_LIMIT);
+        return layout;
+    }
+    
     private void initializeElement() {
         Element element = getElement();
         
@@ -94,48 +243,232 @@ public class DashboardGrid extends Component implements HasSize, HasStyle {
     }
     
     private void setupClientListeners() {
-        // Listen for layout changes from the client
-        getElement().addEventListener("layout-changed", event -> {
-            if (suppressEcho) {
-                return; // Ignore echo from our own update
-            }
-            
-            String itemsJson = event.getEventData().getString("event.detail.items");
-            String itemId = event.getEventData().getString("event.detail.itemId");
-            String reason = event.getEventData().getString("event.detail.reason");
-            boolean isDragging = event.getEventData().getBoolean("event.detail.isDragging");
-            boolean isResizing = event.getEventData().getBoolean("event.detail.isResizing");
-            long clientRevision = (long) event.getEventData().getNumber("event.detail.revision");
-            
+        // Listen for layout changes from the client. Final and intermediate
+        // events use separate listeners so that the intermediate one can be
+        // throttled or left out according to the intermediate event policy.
+        listenForLayoutChanges(FINAL_FILTER);
+        updateIntermediateListener();
+        
+        // The client missed a patch (revision gap) and asks for a full snapshot
+        getElement().addEventListener("layout-resync", event -> {
+            fullSyncRequired = true;
+            syncLayoutToClient();
+        });
+        
+        // The client scrolled or resized while virtualized
+        getElement().addEventListener("visible-rows-changed", event -> setVisibleRows(
+                        (int) event.getEventData().getNumber("event.detail.firstRow"),
+                        (int) event.getEventData().getNumber("event.detail.lastRow")))
+                .addEventData("event.detail.firstRow")
+                .addEventData("event.detail.lastRow");
+    }
+    
+    private DomListenerRegistration listenForLayoutChanges(String filter) {
+        DomListenerRegistration registration = getElement()
+                .addEventListener("layout-changed", this::handleLayoutChanged)
+                .addEventData("event.detail.items")
+                .addEventData("event.detail.itemId")
+                .addEventData("event.detail.reason")
+                .addEventData("event.detail.isDragging")
+                .addEventData("event.detail.isResizing")
+                .addEventData("event.detail.revision")
+                .addEventData("event.detail.serverRevision");
+        registration.setFilter(filter);
+        return registration;
+    }
+    
+    /**
+     * (Re)register the intermediate event listener for the current policy
+     */
+    private void updateIntermediateListener() {
+        if (intermediateRegistration != null) {
+            intermediateRegistration.remove();
+            intermediateRegistration = null;
+        }
+        
+        // Tells the client which intermediate events to send, and whether to
+        // wait for their acknowledgement (throttled events may never arrive).
+        // Without a listener asking for them, none are sent at all.
+        IntermediateEventPolicy.Mode mode = intermediateSubscribers > 0
+                ? intermediateEventPolicy.getMode() : IntermediateEventPolicy.Mode.NONE;
+        switch (mode) {
+            case NONE:
+                getElement().setProperty("intermediateEvents", "none");
+                break;
+            case SAMPLED:
+                intermediateRegistration = listenForLayoutChanges(INTERMEDIATE_FILTER)
+                        .throttle(intermediateEventPolicy.getPeriodMillis());
+                getElement().setProperty("intermediateEvents", "sampled");
+                break;
+            default:
+                intermediateRegistration = listenForLayoutChanges(INTERMEDIATE_FILTER);
+                getElement().setProperty("intermediateEvents", "acked");
+        }
+        getElement().setProperty("intermediateEpoch", ++intermediateEpoch);
+        acknowledgeClientRevision();
+    }
+    
+    private void handleLayoutChanged(DomEvent event) {
+        long clientRevision = (long) event.getEventData().getNumber("event.detail.revision");
+        try {
             // Avoid processing old events
             if (clientRevision <= lastClientRevision) {
                 return;
             }
             lastClientRevision = clientRevision;
+            applyClientChange(event, clientRevision);
+        } finally {
+            // The client sends its next event only after this acknowledgement,
+            // so every event is acknowledged, even when skipped or failed
+            acknowledgeClientRevision();
+        }
+    }
+    
+    /**
+     * Keep an item reported by the client inside the grid, so that a
+     * malformed event cannot make the server index a huge or negative area
+     */
+    private void clampToGrid(GridItemConfig item) {
+        int columns = Math.max(layout.getColumns(), 1);
+        int w = Math.min(Math.max(item.getW(), 1), columns);
+        int h = Math.min(Math.max(item.getH(), 1), MAX_CLIENT_ROWS);
+        item.setW(w);
+        item.setH(h);
+        item.setX(Math.min(Math.max(item.getX(), 0), columns - w));
+        item.setY(Math.min(Math.max(item.getY(), 0), MAX_CLIENT_ROWS - h));
+    }
+    
+    /**
+     * Tell the client that all its events up to the last one received were
+     * processed, releasing the next event it holds back
+     */
+    private void acknowledgeClientRevision() {
+        getElement().setProperty("ackedRevision", lastClientRevision);
+    }
+    
+    private void applyClientChange(DomEvent event, long clientRevision) {
+        JsonArray items = event.getEventData().getArray("event.detail.items");
+        String itemId = event.getEventData().getString("event.detail.itemId");
+        String reason = event.getEventData().getString("event.detail.reason");
+        boolean isDragging = event.getEventData().getBoolean("event.detail.isDragging");
+        boolean isResizing = event.getEventData().getBoolean("event.detail.isResizing");
+        long serverRevision = (long) event.getEventData().getNumber("event.detail.serverRevision");
+        
+        // Apply just the items the client reports as changed. If the client
+        // had not yet seen our latest changes, those win for the items they
+        // touched; the client gets them with the response in flight.
+        List<GridItemConfig> updates = LayoutSerializer.itemsFromJson(items);
+        updates.forEach(this::clampToGrid);
+        boolean inSync = serverRevision >= pushedRevision;
+        if (!inSync) {
+            updates.removeIf(item -> changedSinceRevision(item.getId(), serverRevision));
+        }
+        long current = layout.getRevision();
+        boolean upToDate = current == clientBaseRevision || current == clientEditRevision;
+        layout.updateResolvedItems(updates);
+        if (inSync && upToDate) {
+            clientEditRevision = layout.getRevision();
+        }
+        
+        // Determine change reason
+        LayoutChangeEvent.ChangeReason changeReason = parseChangeReason(reason);
+        
+        LayoutChangeEvent changeEvent = new LayoutChangeEvent(
+            this,
+            true, // from client
+            layout,
+            itemId,
+            changeReason,
+            isDragging,
+            isResizing,
+            clientRevision
+        );
+        
+        if (changeEvent.isIntermediate()) {
+            deliverIntermediate(changeEvent);
+        } else {
+            // A whole drag or resize is one undo step
+            recordHistory();
             
-            // Update layout from client data
-            LayoutSerializer.updateItemsFromJson(layout, itemsJson);
-            
-            // Determine change reason
-            LayoutChangeEvent.ChangeReason changeReason = parseChangeReason(reason);
+            // The final event supersedes anything still held back
+            pendingIntermediateEvents.clear();
+            updateContentInView();
             
-            // Fire event to listeners
-            fireEvent(new LayoutChangeEvent(
-                this,
-                true, // from client
-                layout,
-                itemId,
-                changeReason,
-                isDragging,
-                isResizing,
-                clientRevision
-            ));
-        }).addEventData("event.detail.items")
-          .addEventData("event.detail.itemId")
-          .addEventData("event.detail.reason")
-          .addEventData("event.detail.isDragging")
-          .addEventData("event.detail.isResizing")
-          .addEventData("event.detail.revision");
+            // The client now holds exactly this revision; acknowledge it so
+            // its items are not echoed back in the next patch
+            if (inSync && upToDate && layout.getRevision() != clientBaseRevision) {
+                clientBaseRevision = layout.getRevision();
+                layout.discardChangesUpTo(clientBaseRevision);
+                getElement().setProperty("revision", clientBaseRevision);
+            }
+            fireEvent(changeEvent);
+        }
+    }
+    
+    /**
+     * Check if an item was pushed to the client after the given revision
+     */
+    private boolean changedSinceRevision(String id, long revision) {
+        return snapshotRevision > revision || patchedAt.getOrDefault(id, Long.MIN_VALUE) > revision;
+    }
+    
+    /**
+     * Fire an intermediate event to listeners as far as the policy allows.
+     * The layout itself has already been updated either way.
+     */
+    private void deliverIntermediate(LayoutChangeEvent changeEvent) {
+        switch (intermediateEventPolicy.getMode()) {
+            case NONE:
+                return;
+            case SAMPLED:
+                // Also enforced here in case the client sends faster than throttled
+                long now = System.nanoTime();
+                long periodNanos = intermediateEventPolicy.getPeriodMillis() * 1_000_000L;
+                if (lastIntermediateDelivery != 0 && now - lastIntermediateDelivery < periodNanos) {
+                    return;
+                }
+                lastIntermediateDelivery = now;
+                fireEvent(changeEvent);
+                return;
+            case LATEST_PER_ITEM:
+                boolean firstPending = pendingIntermediateEvents.isEmpty();
+                String key = changeEvent.getAffectedItemId() != null ? changeEvent.getAffectedItemId() : "";
+                pendingIntermediateEvents.remove(key);
+                pendingIntermediateEvents.put(key, changeEvent);
+                if (firstPending) {
+                    getUI().ifPresent(ui -> ui.beforeClientResponse(this, context -> firePendingIntermediateEvents()));
+                }
+                return;
+            default:
+                fireEvent(changeEvent);
+        }
+    }
+    
+    private void firePendingIntermediateEvents() {
+        List<LayoutChangeEvent> pending = new ArrayList<>(pendingIntermediateEvents.values());
+        pendingIntermediateEvents.clear();
+        pending.forEach(this::fireEvent);
+    }
+    
+    /**
+     * Set how intermediate layout changes (during drag or resize) are sent by
+     * the client and delivered to layout change listeners. Final events are
+     * always delivered. Intermediate events are only sent while at least one
+     * listener is registered for {@link EventMode#ALL}.
+     * Default: {@link IntermediateEventPolicy#all()}.
+     */
+    public void setIntermediateEventPolicy(IntermediateEventPolicy policy) {
+        Objects.requireNonNull(policy, "Policy must not be null");
+        if (policy.equals(intermediateEventPolicy)) {
+            return;
+        }
+        intermediateEventPolicy = policy;
+        lastIntermediateDelivery = 0;
+        updateIntermediateListener();
+    }
+    
+    public IntermediateEventPolicy getIntermediateEventPolicy() {
+        return intermediateEventPolicy;
     }
     
     private LayoutChangeEvent.ChangeReason parseChangeReason(String reason) {
@@ -157,8 +490,54 @@ public class DashboardGrid extends Component implements HasSize, HasStyle {
      * @param config Layout configuration
      */
     public void addItem(String id, Component content, GridItemConfig config) {
-        Objects.requireNonNull(id, "ID must not be null");
         Objects.requireNonNull(content, "Content must not be null");
+        addItem(id, content, null, config);
+    }
+    
+    /**
+     * Add an item whose content is created only when the item first comes
+     * into view (see {@link #setVirtualized(boolean)}) or is requested with
+     * {@link #getItemComponent(String)}. Without virtualization every item
+     * is in view, so the content is created right away.
+     * 
+     * @param id Unique identifier for the item
+     * @param content Creates the Vaadin component to display
+     * @param config Layout configuration
+     */
+    public void addItem(String id, SerializableSupplier<? extends Component> content, GridItemConfig config) {
+        addItem(id, null, LazyItemContent.of(content), config);
+    }
+    
+    /**
+     * Add an item with lazily created content and automatic position calculation
+     */
+    public void addItem(String id, SerializableSupplier<? extends Component> content, int width, int height) {
+        GridItemConfig config = layout.findNextAvailablePosition(id, width, height);
+        addItem(id, content, config);
+    }
+    
+    /**
+     * Add an item whose data is loaded in the background when the item first
+     * comes into view. The loader runs on the given executor; the content is
+     * then created from the data and attached in {@link UI#access}, so the
+     * UI must use push or polling for it to show up without user action.
+     * Until then the item is an empty placeholder. If loading fails, the
+     * exception is passed to the session's error handler and the item stays
+     * a placeholder.
+     * 
+     * @param id Unique identifier for the item
+     * @param loader Loads the item's data, off the UI thread
+     * @param executor Runs the loader
+     * @param content Creates the Vaadin component from the loaded data
+     * @param config Layout configuration
+     */
+    public <T> void addItem(String id, SerializableSupplier<T> loader, Executor executor,
+            SerializableFunction<T, ? extends Component> content, GridItemConfig config) {
+        addItem(id, null, LazyItemContent.of(loader, executor, content), config);
+    }
+    
+    private void addItem(String id, Component content, LazyItemContent lazy, GridItemConfig config) {
+        Objects.requireNonNull(id, "ID must not be null");
         Objects.requireNonNull(config, "Config must not be null");
         
         if (!id.equals(config.getId())) {
@@ -167,18 +546,32 @@ public class DashboardGrid extends Component implements HasSize, HasStyle {
         
         // Add to layout
         layout.putItem(config);
+        historyBarrier = true;
         
-        // Store component reference
-        itemComponents.put(id, content);
+        // Store component reference, or how to create it
+        if (content != null) {
+            itemComponents.put(id, content);
+            lazyContent.remove(id);
+        } else {
+            itemComponents.remove(id);
+            lazyContent.put(id, lazy);
+        }
+        
+        // Drop the wrapper of an item previously added with the same ID
+        Element previous = itemWrappers.remove(id);
+        if (previous != null) {
+            previous.removeFromParent();
+        }
         
         // Create wrapper element with slot
         Element wrapper = new Element("div");
         wrapper.setAttribute("slot", "item-" + id);
         wrapper.getClassList().add("dashboard-item-content");
         
-        // Attach component to wrapper
-        wrapper.appendChild(content.getElement());
+        // Attach component to wrapper, unless virtualized and out of view
         getElement().appendChild(wrapper);
+        itemWrappers.put(id, wrapper);
+        updateAttachedContent(id, wrapper);
         
         // Sync to client
         syncLayoutToClient();
@@ -203,7 +596,7 @@ public class DashboardGrid extends Component implements HasSize, HasStyle {
      * Remove an item from the grid
      * 
      * @param id The item ID to remove
-     * @return The removed component, or null if not found
+     * @return The removed component, or null if not found or its content was never created
      */
     public Component removeItem(String id) {
         Objects.requireNonNull(id, "ID must not be null");
@@ -213,14 +606,13 @@ public class DashboardGrid extends Component implements HasSize, HasStyle {
         
         // Remove component
         Component removed = itemComponents.remove(id);
+        lazyContent.remove(id);
         
-        if (removed != null) {
-            // Find and remove the wrapper element
-            String slotName = "item-" + id;
-            getElement().getChildren()
-                .filter(el -> slotName.equals(el.getAttribute("slot")))
-                .findFirst()
-                .ifPresent(Element::removeFromParent);
+        // Remove the wrapper element
+        Element wrapper = itemWrappers.remove(id);
+        if (wrapper != null) {
+            historyBarrier = true;
+            wrapper.removeFromParent();
             
             // Sync to client
             syncLayoutToClient();
@@ -234,33 +626,27 @@ public class DashboardGrid extends Component implements HasSize, HasStyle {
      * 
      * @param id The item ID
      * @param newContent The new component
-     * @return The old component, or null if not found
+     * @return The old component, or null if not found or its content was not created yet
      */
     public Component replaceItem(String id, Component newContent) {
         Objects.requireNonNull(id, "ID must not be null");
         Objects.requireNonNull(newContent, "New content must not be null");
         
-        Component oldContent = itemComponents.get(id);
-        if (oldContent == null) {
+        Element wrapper = itemWrappers.get(id);
+        if (wrapper == null) {
             return null;
         }
         
-        // Find the wrapper element
-        String slotName = "item-" + id;
-        Optional<Element> wrapperOpt = getElement().getChildren()
-            .filter(el -> slotName.equals(el.getAttribute("slot")))
-            .findFirst();
-        
-        if (wrapperOpt.isPresent()) {
-            Element wrapper = wrapperOpt.get();
-            
-            // Remove old content
+        // Remove old content, or forget how to create it
+        Component oldContent = itemComponents.get(id);
+        if (oldContent != null) {
             oldContent.getElement().removeFromParent();
-            
-            // Add new content
-            wrapper.appendChild(newContent.getElement());
-            itemComponents.put(id, newContent);
         }
+        lazyContent.remove(id);
+        
+        // Add new content (attached only if the item is in view)
+        itemComponents.put(id, newContent);
+        updateAttachedContent(id, wrapper);
         
         return oldContent;
     }
@@ -279,7 +665,7 @@ public class DashboardGrid extends Component implements HasSize, HasStyle {
             throw new IllegalArgumentException("ID mismatch");
         }
         
-        if (!itemComponents.containsKey(id)) {
+        if (!itemWrappers.containsKey(id)) {
             throw new IllegalArgumentException("Item not found: " + id);
         }
         
@@ -298,43 +684,141 @@ public class DashboardGrid extends Component implements HasSize, HasStyle {
     }
     
     /**
-     * Get the component for an item
+     * Get the component for an item. While virtualized, the component of an
+     * item out of view is not attached. Lazily created content is created
+     * now; content loaded in the background starts loading and is not
+     * available until loaded.
      * 
      * @param id The item ID
-     * @return The component, or null if not found
+     * @return The component, or null if not found or still loading
      */
     public Component getItemComponent(String id) {
-        return itemComponents.get(id);
+        Component content = itemComponents.get(id);
+        if (content == null && lazyContent.containsKey(id)) {
+            content = createContent(id);
+            if (content != null) {
+                updateAttachedContent(id, itemWrappers.get(id));
+            }
+        }
+        return content;
     }
     
     /**
      * Get all item IDs
      */
     public Set<String> getItemIds() {
-        return new LinkedHashSet<>(itemComponents.keySet());
+        return new LinkedHashSet<>(itemWrappers.keySet());
     }
     
     /**
      * Check if an item exists
      */
     public boolean hasItem(String id) {
-        return itemComponents.containsKey(id);
+        return itemWrappers.containsKey(id);
     }
     
     /**
      * Remove all items
      */
     public void clear() {
-        new ArrayList<>(itemComponents.keySet()).forEach(this::removeItem);
+        removeItems(new ArrayList<>(itemWrappers.keySet()));
+    }
+    
+    /**
+     * Remove several items with a single client sync.
+     * Removing every item detaches all wrappers in one operation.
+     * 
+     * @param ids The item IDs to remove
+     * @return The removed components (unknown IDs and content never created are skipped)
+     */
+    public List<Component> removeItems(Collection<String> ids) {
+        Objects.requireNonNull(ids, "IDs must not be null");
+        
+        List<Component> removed = new ArrayList<>();
+        Set<String> unique = new LinkedHashSet<>(ids);
+        boolean removesAll = unique.containsAll(itemWrappers.keySet());
+        
+        batch(grid -> {
+            historyBarrier = true;
+            if (removesAll && layout.size() == itemWrappers.size()) {
+                layout.clear();
+            } else {
+                unique.forEach(layout::removeItem);
+            }
+            
+            for (String id : unique) {
+                Component component = itemComponents.remove(id);
+                if (component != null) {
+                    removed.add(component);
+                }
+                lazyContent.remove(id);
+                Element wrapper = itemWrappers.remove(id);
+                if (wrapper != null && !removesAll) {
+                    wrapper.removeFromParent();
+                }
+            }
+            
+            if (removesAll) {
+                getElement().removeAllChildren();
+            }
+            syncLayoutToClient();
+        });
+        
+        return removed;
+    }
+    
+    /**
+     * Apply several mutations as one batch. Layout syncs to the client and
+     * compaction are deferred until the outermost batch completes, which then
+     * sends a single update instead of one per mutation.
+     * 
+     * Usage example:
+     * <pre>
+     * grid.batch(g -> {
+     *     g.addItem("a", componentA, 4, 3);
+     *     g.addItem("b", componentB, 4, 3);
+     *     g.removeItem("old");
+     * });
+     * </pre>
+     * 
+     * @param changes The mutations to apply
+     */
+    public void batch(SerializableConsumer<DashboardGrid> changes) {
+        Objects.requireNonNull(changes, "Changes must not be null");
+        
+        if (batchDepth++ == 0) {
+            layout.setCompactionDeferred(true);
+        }
+        try {
+            changes.accept(this);
+        } finally {
+            if (--batchDepth == 0) {
+                long revision = layout.getRevision();
+                layout.setCompactionDeferred(false);
+                if (syncDeferred || layout.getRevision() != revision) {
+                    syncDeferred = false;
+                    syncLayoutToClient();
+                }
+            }
+        }
     }
     
     /**
-     * Get the current layout (read-only copy)
+     * Get the current layout (read-only copy).
+     * Allocates a copy of every item; prefer {@link #getSnapshot()} for reads.
      */
     public GridLayout getLayout() {
         return layout.copy();
     }
     
+    /**
+     * Get an immutable snapshot of the current layout.
+     * Cheap to call repeatedly: the same instance is returned until the layout changes.
+     */
+    public LayoutSnapshot getSnapshot() {
+        return layout.getSnapshot();
+    }
+    
     /**
      * Set the entire layout (replaces all items)
      * WARNING: This removes all existing components
@@ -342,34 +826,86 @@ public class DashboardGrid extends Component implements HasSize, HasStyle {
     public void setLayout(GridLayout newLayout) {
         Objects.requireNonNull(newLayout, "Layout must not be null");
         
-        // Clear existing items
-        clear();
-        
-        // Copy new layout data
-        layout.setColumns(newLayout.getColumns());
-        layout.setRowHeight(newLayout.getRowHeight());
-        layout.setCompact(newLayout.isCompact());
-        layout.setCompactType(newLayout.getCompactType());
-        
-        newLayout.getItems().forEach(layout::putItem);
-        
-        // Update element properties
-        initializeElement();
-        syncLayoutToClient();
+        batch(grid -> {
+            // Clear existing items
+            clear();
+            
+            // Copy new layout data
+            layout.setColumns(newLayout.getColumns());
+            layout.setRowHeight(newLayout.getRowHeight());
+            layout.setCompact(newLayout.isCompact());
+            layout.setCompactType(newLayout.getCompactType());
+            
+            newLayout.getItems().forEach(layout::putItem);
+            
+            // Update element properties
+            initializeElement();
+            syncLayoutToClient();
+        });
     }
     
     /**
      * Restore layout from JSON (useful for persistence)
-     * Note: Only updates positions, doesn't create/remove components
+     * Note: Only updates positions, doesn't create/remove components.
+     * The JSON is parsed on every call; restore layouts shared by many grids
+     * with {@link #restoreLayout(String, LayoutKey, long, LayoutCache)}.
      */
     public void restoreLayout(String layoutJson) {
-        GridLayout restored = LayoutSerializer.fromJson(layoutJson);
-        
-        // Update only existing items
-        for (GridItemConfig restoredItem : restored.getItems()) {
-            if (hasItem(restoredItem.getId())) {
-                layout.putItem(restoredItem);
-            }
+        restoreLayout(LayoutSerializer.fromJson(layoutJson));
+    }
+    
+    /**
+     * Restore item positions from a layout shared by many grids, such as a
+     * dashboard template. The JSON is only parsed if the cache does not hold
+     * the layout at this revision yet, so each revision of a template is
+     * decoded once rather than once per session.
+     * Note: Only updates positions, doesn't create/remove components
+     *
+     * @param layoutJson The layout JSON, as returned by {@link #getLayoutJson()}
+     * @param key The key the layout is shared under
+     * @param revision The revision of the layout, e.g. its version in the
+     *                 database it was read from
+     * @param cache The cache of decoded layouts
+     */
+    public void restoreLayout(String layoutJson, LayoutKey key, long revision, LayoutCache cache) {
+        Objects.requireNonNull(cache, "Cache must not be null");
+        LayoutSnapshot shared = cache.get(key, revision);
+        if (shared == null) {
+            GridLayout parsed = LayoutSerializer.fromJson(layoutJson);
+            // Cache it under the caller's revision, whatever the JSON recorded
+            parsed.setRevision(revision);
+            shared = parsed.getSnapshot();
+            cache.put(key, shared);
+        }
+        restoreLayout(shared);
+    }
+    
+    /**
+     * Restore item positions from a previously saved layout
+     * Note: Only updates positions, doesn't create/remove components
+     */
+    public void restoreLayout(GridLayout restored) {
+        Objects.requireNonNull(restored, "Layout must not be null");
+        restoreItems(restored.getItems());
+    }
+    
+    /**
+     * Restore item positions from a snapshot of a saved layout. The snapshot
+     * is not modified, so it may be shared with other grids.
+     * Note: Only updates positions, doesn't create/remove components
+     */
+    public void restoreLayout(LayoutSnapshot restored) {
+        Objects.requireNonNull(restored, "Layout must not be null");
+        List<GridItemConfig> items = new ArrayList<>(restored.size());
+        restored.itemMap().forEach(item -> items.add(item.toConfig()));
+        restoreItems(items);
+    }
+    
+    private void restoreItems(Collection<GridItemConfig> items) {
+        // Update only existing items, all at once: restoring them one by one
+        // would compact each against a half-restored layout
+        if (layout.restoreItems(items) > 0) {
+            updateContentInView();
         }
         
         syncLayoutToClient();
@@ -383,21 +919,306 @@ public class DashboardGrid extends Component implements HasSize, HasStyle {
     }
     
     /**
-     * Sync the current layout to the client
+     * Mark the layout as changed and schedule a sync to the client.
+     * All syncs requested during one server round-trip are coalesced into a
+     * single flush right before the response is written.
      */
     private void syncLayoutToClient() {
-        suppressEcho = true;
+        if (batchDepth > 0) {
+            syncDeferred = true;
+            return;
+        }
         
-        String itemsJson = LayoutSerializer.itemsToJson(layout);
-        getElement().setProperty("layoutData", itemsJson);
-        getElement().setProperty("revision", layout.getRevision());
+        if (!isAttached()) {
+            // Nothing to patch yet, a full snapshot is sent on attach
+            fullSyncRequired = true;
+            return;
+        }
         
-        // Reset echo suppression after a short delay
-        getElement().executeJs(
-            "setTimeout(() => { this._suppressEcho = false; }, 100);"
-        );
+        if (flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        getUI().ifPresent(ui -> ui.beforeClientResponse(this, context -> flushLayoutToClient()));
+    }
+    
+    /**
+     * Send only the items changed since the revision the client holds
+     * (layoutPatch), or a full snapshot (layoutData) when no usable delta exists.
+     */
+    private void flushLayoutToClient() {
+        flushScheduled = false;
         
-        suppressEcho = false;
+        // Server-side changes of one round-trip are one undo step
+        recordHistory();
+        
+        // Moved items may have come into or gone out of view
+        updateContentInView();
+        
+        LayoutChanges changes = fullSyncRequired ? null : layout.changesSince(clientBaseRevision);
+        if (changes == null || changes.size() > layout.size() / 2) {
+            getElement().setPropertyJson("layoutData", LayoutSerializer.itemsToJsonArray(layout));
+            getElement().setProperty("revision", layout.getRevision());
+            clientBaseRevision = layout.getRevision();
+            fullSyncRequired = false;
+            snapshotRevision = clientBaseRevision;
+            pushedRevision = clientBaseRevision;
+            patchedAt.clear();
+        } else if (!changes.isEmpty()) {
+            getElement().setPropertyJson("layoutPatch", LayoutSerializer.changesToJsonObject(changes));
+            clientBaseRevision = changes.getRevision();
+            pushedRevision = clientBaseRevision;
+            changes.getUpdated().forEach(item -> patchedAt.put(item.getId(), clientBaseRevision));
+            changes.getRemoved().forEach(patchedAt::remove);
+        }
+        
+        // Whatever was queued above is part of this response, so the client
+        // holds it from now on and older removals no longer need tracking
+        layout.discardChangesUpTo(clientBaseRevision);
+    }
+    
+    /**
+     * Checkpoint the layout history, or start it afresh if items were added or removed
+     */
+    private void recordHistory() {
+        if (historyBarrier) {
+            historyBarrier = false;
+            layout.clearHistory();
+        } else {
+            layout.checkpoint();
+        }
+    }
+    
+    /**
+     * Undo the last layout change: a drag or resize by the user, or the
+     * changes made on the server in one round-trip. Only the reverted items
+     * are sent to the client. Adding or removing items clears the history,
+     * so undo never brings back or drops item content.
+     * 
+     * @return false if there is nothing to undo
+     */
+    public boolean undo() {
+        recordHistory();
+        boolean changed = layout.undo();
+        if (changed) {
+            syncLayoutToClient();
+        }
+        return changed;
+    }
+    
+    /**
+     * Redo the last undone layout change
+     * 
+     * @return false if there is nothing to redo
+     */
+    public boolean redo() {
+        recordHistory();
+        boolean changed = layout.redo();
+        if (changed) {
+            syncLayoutToClient();
+        }
+        return changed;
+    }
+    
+    /**
+     * Undo or redo until the layout is as it was at an earlier revision,
+     * e.g. one reported by {@link LayoutChangeEvent#getSnapshot()}
+     * 
+     * @param revision A layout revision at which a change was completed
+     * @return false if that revision is not (or no longer) in the history
+     */
+    public boolean revertTo(long revision) {
+        recordHistory();
+        long before = layout.getRevision();
+        boolean found = layout.revertTo(revision);
+        if (layout.getRevision() != before) {
+            syncLayoutToClient();
+        }
+        return found;
+    }
+    
+    public boolean canUndo() {
+        return !historyBarrier && layout.canUndo();
+    }
+    
+    public boolean canRedo() {
+        return !historyBarrier && layout.canRedo();
+    }
+    
+    /**
+     * Set how many item changes the undo history keeps in total (0 disables
+     * undo). Default: {@link #DEFAULT_HISTORY_LIMIT} for a grid that creates
+     * its own layout, otherwise whatever the given layout was set up with.
+     */
+    public void setHistoryLimit(int maxItemChanges) {
+        layout.setHistoryLimit(maxItemChanges);
+    }
+    
+    public int getHistoryLimit() {
+        return layout.getHistoryLimit();
+    }
+    
+    /**
+     * Enable or disable virtualization. When enabled, the client reports
+     * which rows are scrolled into view and the component of an item is
+     * only attached while the item is within those rows plus the overscan.
+     * Items out of view keep their place in the grid as empty placeholders
+     * of the configured size, so the scroll height does not change.
+     * Default: disabled.
+     */
+    public void setVirtualized(boolean virtualized) {
+        if (this.virtualized == virtualized) {
+            return;
+        }
+        this.virtualized = virtualized;
+        getElement().setProperty("virtualized", virtualized);
+        updateAttachedContent();
+    }
+    
+    public boolean isVirtualized() {
+        return virtualized;
+    }
+    
+    /**
+     * Set how many rows above and below the visible rows keep their item
+     * content attached when virtualized. Default: {@link #DEFAULT_OVERSCAN_ROWS}.
+     */
+    public void setOverscanRows(int overscanRows) {
+        if (overscanRows < 0) {
+            throw new IllegalArgumentException("Overscan must not be negative: " + overscanRows);
+        }
+        this.overscanRows = overscanRows;
+        updateContentInView();
+    }
+    
+    public int getOverscanRows() {
+        return overscanRows;
+    }
+    
+    /**
+     * Set the rows currently visible on the client (both inclusive)
+     */
+    void setVisibleRows(int firstRow, int lastRow) {
+        firstVisibleRow = Math.max(0, firstRow);
+        lastVisibleRow = Math.max(firstVisibleRow, lastRow);
+        updateContentInView();
+    }
+    
+    /**
+     * Attach or detach the content of items that came into or went out of
+     * view while virtualized. Only items in view before or now are visited.
+     */
+    private void updateContentInView() {
+        if (!virtualized) {
+            return;
+        }
+        Set<String> affected = new LinkedHashSet<>(itemsInView);
+        for (GridItemConfig item : layout.getItemsInRows(viewTop(), viewBottom())) {
+            affected.add(item.getId());
+        }
+        for (String id : affected) {
+            Element wrapper = itemWrappers.get(id);
+            if (wrapper != null) {
+                updateAttachedContent(id, wrapper);
+            } else {
+                itemsInView.remove(id);
+            }
+        }
+    }
+    
+    /**
+     * Attach or detach the content of every item according to the visible
+     * rows, creating lazy content that comes into view
+     */
+    private void updateAttachedContent() {
+        // Content suppliers may add or remove items
+        for (String id : new ArrayList<>(itemWrappers.keySet())) {
+            Element wrapper = itemWrappers.get(id);
+            if (wrapper != null) {
+                updateAttachedContent(id, wrapper);
+            }
+        }
+    }
+    
+    private void updateAttachedContent(String id, Element wrapper) {
+        boolean inView = isInView(layout.getItem(id));
+        if (inView) {
+            itemsInView.add(id);
+        } else {
+            itemsInView.remove(id);
+        }
+        Component content = itemComponents.get(id);
+        if (content == null && inView) {
+            content = createContent(id);
+        }
+        if (content == null) {
+            // Not created yet, or still loading
+            wrapper.setAttribute("placeholder", true);
+            return;
+        }
+        Element element = content.getElement();
+        boolean attached = element.getParent() == wrapper;
+        if (inView) {
+            if (!attached) {
+                wrapper.appendChild(element);
+                wrapper.removeAttribute("placeholder");
+            }
+        } else if (attached) {
+            wrapper.removeChild(element);
+            wrapper.setAttribute("placeholder", true);
+        }
+    }
+    
+    /**
+     * Create the content of a lazy item, or start loading its data
+     * 
+     * @return The content, or null while loading in the background
+     */
+    private Component createContent(String id) {
+        LazyItemContent lazy = lazyContent.get(id);
+        if (lazy == null) {
+            return null;
+        }
+        if (!lazy.isBackground()) {
+            Component content = lazy.create();
+            lazyContent.remove(id);
+            itemComponents.put(id, content);
+            return content;
+        }
+        if (!lazy.isLoading()) {
+            getUI().ifPresent(ui -> lazy.load(ui, content -> contentLoaded(id, lazy, content)));
+        }
+        return null;
+    }
+    
+    private void contentLoaded(String id, LazyItemContent lazy, Component content) {
+        if (lazyContent.get(id) != lazy) {
+            return; // Removed or replaced while loading
+        }
+        lazyContent.remove(id);
+        itemComponents.put(id, content);
+        updateAttachedContent(id, itemWrappers.get(id));
+    }
+    
+    private boolean isInView(GridItemConfig item) {
+        if (!virtualized || item == null) {
+            return true;
+        }
+        return item.getY() <= viewBottom() && (long) item.getY() + item.getH() > viewTop();
+    }
+    
+    /**
+     * First row of the visible rows plus overscan
+     */
+    private int viewTop() {
+        return Math.max(0, firstVisibleRow - overscanRows);
+    }
+    
+    /**
+     * Last row of the visible rows plus overscan
+     */
+    private int viewBottom() {
+        return (int) Math.min(Integer.MAX_VALUE, (long) lastVisibleRow + overscanRows);
     }
     
     /**
@@ -438,6 +1259,7 @@ public class DashboardGrid extends Component implements HasSize, HasStyle {
     public void setCompact(boolean compact) {
         layout.setCompact(compact);
         getElement().setProperty("compact", compact);
+        syncLayoutToClient();
     }
     
     /**
@@ -455,6 +1277,7 @@ public class DashboardGrid extends Component implements HasSize, HasStyle {
         if (compactType != null) {
             getElement().setProperty("compactType", compactType);
         }
+        syncLayoutToClient();
     }
     
     /**
@@ -465,12 +1288,67 @@ public class DashboardGrid extends Component implements HasSize, HasStyle {
     }
     
     /**
-     * Add a listener for layout change events
+     * Add a listener for all layout change events, including intermediate
+     * ones during drag or resize as far as the intermediate event policy allows
      * 
      * @param listener The listener
      * @return A registration for removing the listener
      */
     public Registration addLayoutChangeListener(ComponentEventListener<LayoutChangeEvent> listener) {
-        return addListener(LayoutChangeEvent.class, listener);
+        return addLayoutChangeListener(listener, EventMode.ALL);
+    }
+    
+    /**
+     * Add a listener for layout change events
+     * 
+     * @param listener The listener
+     * @param mode Which events the listener receives
+     * @return A registration for removing the listener
+     */
+    public Registration addLayoutChangeListener(ComponentEventListener<LayoutChangeEvent> listener,
+            EventMode mode) {
+        Objects.requireNonNull(listener, "Listener must not be null");
+        Objects.requireNonNull(mode, "Event mode must not be null");
+        if (mode == EventMode.FINAL_ONLY) {
+            return addListener(LayoutChangeEvent.class, event -> {
+                if (event.isFinal()) {
+                    listener.onComponentEvent(event);
+                }
+            });
+        }
+        
+        Registration registration = addListener(LayoutChangeEvent.class, listener);
+        if (intermediateSubscribers++ == 0) {
+            updateIntermediateListener();
+        }
+        boolean[] removed = new boolean[1];
+        return () -> {
+            if (removed[0]) {
+                return;
+            }
+            removed[0] = true;
+            registration.remove();
+            if (--intermediateSubscribers == 0) {
+                pendingIntermediateEvents.clear();
+                updateIntermediateListener();
+            }
+        };
+    }
+    
+    /**
+     * Which layout change events a listener receives
+     */
+    public enum EventMode {
+        /**
+         * Final and intermediate events. Registering such a listener makes
+         * the client send intermediate events.
+         */
+        ALL,
+        
+        /**
+         * Only events for completed changes. Intermediate events are filtered
+         * out in the browser unless another listener asks for them.
+         */
+        FINAL_ONLY
     }
 }
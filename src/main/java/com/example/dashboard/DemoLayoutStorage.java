@@ -0,0 +1,50 @@
+package com.example.dashboard;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * File-backed layout storage of the demo, kept across restarts.
+ *
+ * Opened when a view first uses it and closed when the application stops
+ * (including dev mode restarts), so the store reopens from its index instead
+ * of replaying the whole log and the next instance can take the directory
+ * lock. An application that never shows a view never opens the store.
+ */
+@ApplicationScoped
+public class DemoLayoutStorage {
+    
+    private FileLayoutStore store;
+    private LayoutPersistenceService persistence;
+    
+    @PostConstruct
+    void open() {
+        Path directory = Path.of(System.getProperty("java.io.tmpdir"), "dashboard-grid-demo");
+        try {
+            store = new FileLayoutStore(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open layout store in " + directory, e);
+        }
+        persistence = new LayoutPersistenceService(new CachingLayoutStore(store));
+    }
+    
+    public LayoutPersistenceService getPersistence() {
+        return persistence;
+    }
+    
+    @PreDestroy
+    void close() {
+        // Write pending saves before the store goes away
+        persistence.close();
+        try {
+            store.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close layout store", e);
+        }
+    }
+}
@@ -16,9 +16,11 @@ import com.vaadin.flow.component.textfield.NumberField;
 import com.vaadin.flow.component.textfield.TextArea;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.router.Route;
+import jakarta.inject.Inject;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -34,11 +36,15 @@ public class DemoView extends VerticalLayout {
     private final DashboardGrid grid;
     private final AtomicInteger itemCounter = new AtomicInteger(1);
     
-    // In-memory layout storage (in production, use a database)
-    private static final Map<String, String> layoutStorage = new HashMap<>();
-    private static final String LAYOUT_KEY = "dashboard-layout";
+    // File-backed layout storage, shared by all views and kept across restarts
+    private final LayoutPersistenceService persistence;
     
-    public DemoView() {
+    private static final LayoutKey LAYOUT_KEY = LayoutKey.of("demo", "dashboard-layout");
+    
+    @Inject
+    public DemoView(DemoLayoutStorage storage) {
+        persistence = storage.getPersistence();
+        
         setSpacing(true);
         setPadding(true);
         setSizeFull();
@@ -57,30 +63,28 @@ public class DemoView extends VerticalLayout {
         grid.setWidth("100%");
         grid.setHeight("600px");
         
-        // Add layout change listener
+        // Add layout change listener. Only final updates are logged to avoid
+        // spam, so the client does not need to send intermediate events.
         grid.addLayoutChangeListener(event -> {
-            if (event.isFinal()) {
-                // Only log final updates to avoid spam
-                Notification notification = Notification.show(
-                    String.format("Layout changed: %s on item %s",
-                        event.getReason(),
-                        event.getAffectedItemId() != null ? event.getAffectedItemId() : "multiple"
-                    ),
-                    3000,
-                    Notification.Position.BOTTOM_END
-                );
-                notification.addThemeVariants(NotificationVariant.LUMO_SUCCESS);
-                
-                // Auto-save layout
-                autoSaveLayout();
-            }
-        });
+            Notification notification = Notification.show(
+                String.format("Layout changed: %s on item %s",
+                    event.getReason(),
+                    event.getAffectedItemId() != null ? event.getAffectedItemId() : "multiple"
+                ),
+                3000,
+                Notification.Position.BOTTOM_END
+            );
+            notification.addThemeVariants(NotificationVariant.LUMO_SUCCESS);
+        }, DashboardGrid.EventMode.FINAL_ONLY);
+        
+        // Auto-save layout in the background after each drag or resize
+        persistence.bind(grid, LAYOUT_KEY);
         
         // Control panel
         HorizontalLayout controls = createControlPanel();
         
-        // Add some initial items
-        addInitialItems();
+        // Add some initial items (one client update for all of them)
+        grid.batch(g -> addInitialItems());
         
         // Try to restore saved layout
         restoreLayout();
@@ -279,24 +283,29 @@ public class DemoView extends VerticalLayout {
     }
     
     private void saveLayout() {
-        String layoutJson = grid.getLayoutJson();
-        layoutStorage.put(LAYOUT_KEY, layoutJson);
+        CompletableFuture<Boolean> saved = persistence.save(LAYOUT_KEY, grid.getSnapshot());
+        persistence.flush();
         
-        Notification notification = Notification.show(
-            "Layout saved successfully!",
-            3000,
-            Notification.Position.MIDDLE
-        );
-        notification.addThemeVariants(NotificationVariant.LUMO_SUCCESS);
-    }
-    
-    private void autoSaveLayout() {
-        String layoutJson = grid.getLayoutJson();
-        layoutStorage.put(LAYOUT_KEY, layoutJson);
+        try {
+            // Complete after the flush; false if this revision of the grid was already written
+            String message = saved.join() ? "Layout saved successfully!" : "Layout is already saved";
+            Notification notification = Notification.show(message, 3000, Notification.Position.MIDDLE);
+            notification.addThemeVariants(NotificationVariant.LUMO_SUCCESS);
+        } catch (CompletionException e) {
+            Notification.show("Failed to save layout: " + e.getCause().getMessage(), 3000, Notification.Position.MIDDLE)
+                .addThemeVariants(NotificationVariant.LUMO_ERROR);
+        }
     }
     
     private void restoreLayout() {
-        String savedLayout = layoutStorage.get(LAYOUT_KEY);
+        GridLayout savedLayout;
+        try {
+            savedLayout = persistence.load(LAYOUT_KEY);
+        } catch (IOException e) {
+            Notification.show("Failed to load layout: " + e.getMessage(), 3000, Notification.Position.MIDDLE)
+                .addThemeVariants(NotificationVariant.LUMO_ERROR);
+            return;
+        }
         if (savedLayout != null) {
             grid.restoreLayout(savedLayout);
             
@@ -0,0 +1,726 @@
+package com.example.dashboard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+/**
+ * {@link LayoutStore} keeping all layouts of a directory in a single
+ * append-only log file, with a memory-mapped hash index next to it.
+ *
+ * Every save or delete appends one record to the log, so writes are
+ * sequential. The index maps each key to the offset and length of its
+ * latest record, so a load is a single positional read. Records that were
+ * overwritten or deleted stay in the log until it is compacted, which
+ * happens automatically once they take up more than half of it (and at
+ * least {@link #MIN_COMPACTION_BYTES}), or on {@link #compact()}.
+ *
+ * The index is only trusted if the store was closed cleanly; otherwise it
+ * is rebuilt from the log on open, and a torn record at the end of the log
+ * (from a crash during a save) is cut off.
+ *
+ * A store holds an exclusive lock on {@link #LOCK_FILE} while it is open,
+ * so a second store on the same directory, in this or another process,
+ * fails to open instead of writing to the log concurrently.
+ *
+ * Log format: a header (magic, generation), then records of
+ * <pre>
+ * length (int, bytes after this field)
+ * type (byte: 1 put, 2 delete)
+ * user, dashboard (each a short length and UTF-8 bytes)
+ * revision (long)
+ * layout in {@link LayoutBinaryCodec} form (puts only)
+ * CRC32C of everything from type to the layout (int)
+ * </pre>
+ */
+public final class FileLayoutStore implements LayoutStore, Closeable {
+
+    /**
+     * Dead bytes in the log below which it is never compacted automatically
+     */
+    public static final long MIN_COMPACTION_BYTES = 1 << 20;
+
+    static final String LOG_FILE = "layouts.log";
+    static final String INDEX_FILE = "layouts.idx";
+    static final String LOCK_FILE = "layouts.lock";
+    private static final String COMPACT_FILE = "layouts.log.compact";
+
+    private static final int LOG_MAGIC = 0x444C4F47;
+    private static final int INDEX_MAGIC = 0x44494458;
+    private static final int LOG_HEADER = 12;
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    /**
+     * Record bytes that are not key or layout: length, type, two key
+     * lengths, revision and checksum
+     */
+    private static final int RECORD_OVERHEAD = 4 + 1 + 2 + 2 + 8 + 4;
+
+    // Index header: magic, clean flag, generation, capacity, size, used slots, log length, dead bytes
+    private static final int IDX_MAGIC = 0;
+    private static final int IDX_CLEAN = 4;
+    private static final int IDX_GENERATION = 8;
+    private static final int IDX_CAPACITY = 16;
+    private static final int IDX_SIZE = 20;
+    private static final int IDX_USED = 24;
+    private static final int IDX_LOG_LENGTH = 32;
+    private static final int IDX_GARBAGE = 40;
+    private static final int INDEX_HEADER = 48;
+
+    // Index slot: key hash, record offset (0 empty, -1 deleted), record length
+    private static final int SLOT = 24;
+    private static final int SLOT_OFFSET = 8;
+    private static final int SLOT_LENGTH = 16;
+    private static final long EMPTY = 0;
+    private static final long DELETED = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Path directory;
+    private final FileChannel lockChannel;
+    private FileChannel log;
+    private long logLength;
+    private long generation;
+
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private int capacity;
+    private int size;
+    private int used;
+    private long garbage;
+
+    private boolean closed;
+
+    /**
+     * Record read while confirming the slot returned by the last {@link #findSlot} call
+     */
+    private Record found;
+
+    /**
+     * Decoded log record
+     */
+    private static final class Record {
+        final byte type;
+        final LayoutKey key;
+        final long revision;
+        final byte[] layout;
+
+        Record(byte type, LayoutKey key, long revision, byte[] layout) {
+            this.type = type;
+            this.key = key;
+            this.revision = revision;
+            this.layout = layout;
+        }
+    }
+
+    /**
+     * Open the store in a directory, creating the directory and files if needed
+     *
+     * @param directory The directory holding the log and index files
+     */
+    public FileLayoutStore(Path directory) throws IOException {
+        this.directory = Objects.requireNonNull(directory, "Directory must not be null");
+        Files.createDirectories(directory);
+        lockChannel = lockDirectory(directory);
+        try {
+            open();
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Take the exclusive lock of a directory, kept until the returned channel is closed
+     */
+    private static FileChannel lockDirectory(Path directory) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE),
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException("Layout store directory " + directory + " is in use by another store");
+        }
+        return channel;
+    }
+
+    /**
+     * Open the log and index files, rebuilding the index if it cannot be trusted
+     */
+    private void open() throws IOException {
+        // A compaction interrupted before its rename left only a temporary file
+        Files.deleteIfExists(directory.resolve(COMPACT_FILE));
+
+        log = openLog(directory.resolve(LOG_FILE));
+        indexChannel = FileChannel.open(directory.resolve(INDEX_FILE),
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            if (!openIndex()) {
+                rebuildIndex();
+            }
+            index.putInt(IDX_CLEAN, 0);
+            index.force();
+        } catch (IOException | RuntimeException e) {
+            indexChannel.close();
+            log.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void save(LayoutKey key, LayoutSnapshot snapshot) throws IOException {
+        Objects.requireNonNull(key, "Key must not be null");
+        Objects.requireNonNull(snapshot, "Snapshot must not be null");
+        ensureOpen();
+
+        byte[] layout = LayoutBinaryCodec.toBytes(snapshot);
+        ByteBuffer record = encode(PUT, key, snapshot.getRevision(), layout);
+        int length = record.remaining();
+        long offset = append(record);
+        indexPut(key, hash(key), offset, length);
+        writeIndexHeader();
+        compactIfWasteful();
+    }
+
+    @Override
+    public synchronized GridLayout load(LayoutKey key) throws IOException {
+        Objects.requireNonNull(key, "Key must not be null");
+        ensureOpen();
+
+        if (findSlot(key, hash(key)) < 0) {
+            return null;
+        }
+        return LayoutBinaryCodec.fromBytes(found.layout);
+    }
+
+    /**
+     * Get the revision of the stored layout as it was saved
+     *
+     * @return The revision, or -1 if nothing is stored under the key
+     */
+    public synchronized long getRevision(LayoutKey key) throws IOException {
+        Objects.requireNonNull(key, "Key must not be null");
+        ensureOpen();
+
+        return findSlot(key, hash(key)) < 0 ? -1 : found.revision;
+    }
+
+    @Override
+    public synchronized List<LayoutKey> list(String user) throws IOException {
+        Objects.requireNonNull(user, "User must not be null");
+        ensureOpen();
+
+        List<LayoutKey> keys = new ArrayList<>();
+        for (int slot = 0; slot < capacity; slot++) {
+            long offset = slotOffset(slot);
+            if (offset > 0) {
+                Record record = readRecord(offset, slotLength(slot));
+                if (record.key.getUser().equals(user)) {
+                    keys.add(record.key);
+                }
+            }
+        }
+        keys.sort(Comparator.comparing(LayoutKey::getDashboard));
+        return keys;
+    }
+
+    @Override
+    public synchronized boolean delete(LayoutKey key) throws IOException {
+        Objects.requireNonNull(key, "Key must not be null");
+        ensureOpen();
+
+        long hash = hash(key);
+        int slot = findSlot(key, hash);
+        if (slot < 0) {
+            return false;
+        }
+
+        // The delete record keeps the key deleted when the index is rebuilt from the log
+        ByteBuffer record = encode(DELETE, key, 0, new byte[0]);
+        int length = record.remaining();
+        append(record);
+        garbage += slotLength(slot) + length;
+        setSlot(slot, hash, DELETED, 0);
+        size--;
+        writeIndexHeader();
+        compactIfWasteful();
+        return true;
+    }
+
+    /**
+     * Rewrite the log with only the latest record of each stored layout
+     */
+    public synchronized void compact() throws IOException {
+        ensureOpen();
+
+        Path compactPath = directory.resolve(COMPACT_FILE);
+        long newGeneration = generation + 1;
+        long[] hashes = new long[size];
+        long[] offsets = new long[size];
+        int[] lengths = new int[size];
+        int count = 0;
+
+        try (FileChannel out = FileChannel.open(compactPath, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(out, logHeader(newGeneration), 0);
+            long position = LOG_HEADER;
+            for (int slot = 0; slot < capacity; slot++) {
+                long offset = slotOffset(slot);
+                if (offset > 0) {
+                    int length = slotLength(slot);
+                    ByteBuffer record = readFully(offset, length);
+                    writeFully(out, record, position);
+                    hashes[count] = slotHash(slot);
+                    offsets[count] = position;
+                    lengths[count] = length;
+                    count++;
+                    position += length;
+                }
+            }
+            out.force(true);
+        }
+
+        // The new log has a new generation, so the index is rebuilt if we crash before updating it
+        log.close();
+        try {
+            Files.move(compactPath, directory.resolve(LOG_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            log = openLog(directory.resolve(LOG_FILE));
+        }
+        if (generation != newGeneration) {
+            throw new IOException("Compacted layout log was not installed");
+        }
+
+        clearIndex(capacity);
+        for (int i = 0; i < count; i++) {
+            insertNew(hashes[i], offsets[i], lengths[i]);
+        }
+        writeIndexHeader();
+    }
+
+    /**
+     * Get the current size of the log file in bytes
+     */
+    public synchronized long getLogLength() {
+        return logLength;
+    }
+
+    /**
+     * Flush everything to disk and release the files. The store cannot be used afterwards.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            log.force(true);
+            writeIndexHeader();
+            index.putInt(IDX_CLEAN, 1);
+            index.force();
+        } finally {
+            try {
+                indexChannel.close();
+            } finally {
+                try {
+                    log.close();
+                } finally {
+                    // Closing the channel releases the directory lock
+                    lockChannel.close();
+                }
+            }
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Layout store is closed");
+        }
+    }
+
+    // ---- Log ----
+
+    private FileChannel openLog(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            long length = channel.size();
+            if (length < LOG_HEADER) {
+                // New (or torn while being created)
+                generation = System.nanoTime();
+                channel.truncate(0);
+                writeFully(channel, logHeader(generation), 0);
+                channel.force(true);
+                length = LOG_HEADER;
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(LOG_HEADER);
+                readFully(channel, header, 0);
+                if (header.getInt(0) != LOG_MAGIC) {
+                    throw new IOException("Not a layout log: " + path);
+                }
+                generation = header.getLong(4);
+            }
+            logLength = length;
+            return channel;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static ByteBuffer logHeader(long generation) {
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER);
+        header.putInt(LOG_MAGIC).putLong(generation).flip();
+        return header;
+    }
+
+    private long append(ByteBuffer record) throws IOException {
+        long offset = logLength;
+        writeFully(log, record, offset);
+        log.force(false);
+        logLength = offset + record.limit();
+        return offset;
+    }
+
+    private static ByteBuffer encode(byte type, LayoutKey key, long revision, byte[] layout) {
+        byte[] user = key.getUser().getBytes(StandardCharsets.UTF_8);
+        byte[] dashboard = key.getDashboard().getBytes(StandardCharsets.UTF_8);
+        if (user.length > 0xFFFF || dashboard.length > 0xFFFF) {
+            throw new IllegalArgumentException("Layout key is too long: " + key);
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + user.length + dashboard.length + layout.length);
+        record.putInt(record.capacity() - 4);
+        record.put(type);
+        record.putShort((short) user.length).put(user);
+        record.putShort((short) dashboard.length).put(dashboard);
+        record.putLong(revision);
+        record.put(layout);
+
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), 4, record.position() - 4);
+        record.putInt((int) crc.getValue());
+        record.flip();
+        return record;
+    }
+
+    /**
+     * Decode a record, or return null if it is torn or corrupt
+     */
+    private static Record decode(ByteBuffer record) {
+        int length = record.limit();
+        if (length < RECORD_OVERHEAD || record.getInt(0) != length - 4) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), 4, length - 8);
+        if ((int) crc.getValue() != record.getInt(length - 4)) {
+            return null;
+        }
+
+        record.position(4);
+        byte type = record.get();
+        String user = readString(record);
+        String dashboard = readString(record);
+        long revision = record.getLong();
+        byte[] layout = new byte[length - 4 - record.position()];
+        record.get(layout);
+        return new Record(type, LayoutKey.of(user, dashboard), revision, layout);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private Record readRecord(long offset, int length) throws IOException {
+        Record record = decode(readFully(offset, length));
+        if (record == null) {
+            throw new IOException("Corrupt layout record at offset " + offset);
+        }
+        return record;
+    }
+
+    private ByteBuffer readFully(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(log, buffer, offset);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of layout log");
+            }
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    // ---- Index ----
+
+    /**
+     * Map the existing index file if it is consistent with the log
+     *
+     * @return false if the index must be rebuilt
+     */
+    private boolean openIndex() throws IOException {
+        if (indexChannel.size() < INDEX_HEADER) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER);
+        readFully(indexChannel, header, 0);
+        int storedCapacity = header.getInt(IDX_CAPACITY);
+        if (header.getInt(IDX_MAGIC) != INDEX_MAGIC
+                || header.getInt(IDX_CLEAN) != 1
+                || header.getLong(IDX_GENERATION) != generation
+                || header.getLong(IDX_LOG_LENGTH) != logLength
+                || storedCapacity < INITIAL_CAPACITY
+                || Integer.bitCount(storedCapacity) != 1
+                || indexChannel.size() != INDEX_HEADER + (long) storedCapacity * SLOT) {
+            return false;
+        }
+
+        capacity = storedCapacity;
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER + (long) capacity * SLOT);
+        size = header.getInt(IDX_SIZE);
+        used = header.getInt(IDX_USED);
+        garbage = header.getLong(IDX_GARBAGE);
+        return true;
+    }
+
+    /**
+     * Rebuild the index by replaying the log, cutting off a torn tail
+     */
+    private void rebuildIndex() throws IOException {
+        clearIndex(Math.max(capacity, INITIAL_CAPACITY));
+
+        long position = LOG_HEADER;
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+        while (position + 4 <= logLength) {
+            lengthBuffer.clear();
+            readFully(log, lengthBuffer, position);
+            long length = 4L + lengthBuffer.getInt(0);
+            if (length < RECORD_OVERHEAD || position + length > logLength) {
+                break;
+            }
+            Record record = decode(readFully(position, (int) length));
+            if (record == null) {
+                break;
+            }
+
+            long hash = hash(record.key);
+            if (record.type == PUT) {
+                indexPut(record.key, hash, position, (int) length);
+            } else {
+                garbage += length;
+                int slot = findSlot(record.key, hash);
+                if (slot >= 0) {
+                    garbage += slotLength(slot);
+                    setSlot(slot, hash, DELETED, 0);
+                    size--;
+                }
+            }
+            position += length;
+        }
+
+        if (position < logLength) {
+            log.truncate(position);
+            log.force(true);
+            logLength = position;
+        }
+        writeIndexHeader();
+    }
+
+    /**
+     * Map an empty index with the given capacity, growing the file if needed
+     */
+    private void clearIndex(int newCapacity) throws IOException {
+        capacity = newCapacity;
+        long mappedSize = INDEX_HEADER + (long) capacity * SLOT;
+        if (index == null || index.capacity() != mappedSize) {
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize);
+        }
+        for (int i = 0; i < mappedSize; i += 8) {
+            index.putLong(i, 0);
+        }
+        if (indexChannel.size() > mappedSize) {
+            indexChannel.truncate(mappedSize);
+        }
+        size = 0;
+        used = 0;
+        garbage = 0;
+        index.putInt(IDX_MAGIC, INDEX_MAGIC);
+        index.putInt(IDX_CAPACITY, capacity);
+    }
+
+    private void writeIndexHeader() {
+        index.putLong(IDX_GENERATION, generation);
+        index.putInt(IDX_SIZE, size);
+        index.putInt(IDX_USED, used);
+        index.putLong(IDX_LOG_LENGTH, logLength);
+        index.putLong(IDX_GARBAGE, garbage);
+    }
+
+    /**
+     * Find the slot holding a key, confirming hash matches against the log
+     *
+     * @return The slot, or -1 if the key is not stored; the confirmed record is left in {@link #found}
+     */
+    private int findSlot(LayoutKey key, long hash) throws IOException {
+        int mask = capacity - 1;
+        for (int slot = (int) mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            long offset = slotOffset(slot);
+            if (offset == EMPTY) {
+                found = null;
+                return -1;
+            }
+            if (offset > 0 && slotHash(slot) == hash) {
+                Record record = readRecord(offset, slotLength(slot));
+                if (record.key.equals(key)) {
+                    found = record;
+                    return slot;
+                }
+            }
+        }
+    }
+
+    private void indexPut(LayoutKey key, long hash, long offset, int length) throws IOException {
+        int slot = findSlot(key, hash);
+        if (slot >= 0) {
+            garbage += slotLength(slot);
+            setSlot(slot, hash, offset, length);
+            return;
+        }
+        if ((used + 1) * 4L > capacity * 3L) {
+            resize(capacity * 2);
+        }
+        insertNew(hash, offset, length);
+    }
+
+    /**
+     * Insert a key known to be absent, reusing a deleted slot if one comes first
+     */
+    private void insertNew(long hash, long offset, int length) {
+        int mask = capacity - 1;
+        int slot = (int) mix(hash) & mask;
+        while (slotOffset(slot) > 0) {
+            slot = (slot + 1) & mask;
+        }
+        if (slotOffset(slot) == EMPTY) {
+            used++;
+        }
+        setSlot(slot, hash, offset, length);
+        size++;
+    }
+
+    /**
+     * Rehash the live entries into a table of the given capacity, dropping deleted slots
+     */
+    private void resize(int newCapacity) throws IOException {
+        long[] hashes = new long[size];
+        long[] offsets = new long[size];
+        int[] lengths = new int[size];
+        int count = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            long offset = slotOffset(slot);
+            if (offset > 0) {
+                hashes[count] = slotHash(slot);
+                offsets[count] = offset;
+                lengths[count] = slotLength(slot);
+                count++;
+            }
+        }
+
+        long keptGarbage = garbage;
+        clearIndex(newCapacity);
+        garbage = keptGarbage;
+        for (int i = 0; i < count; i++) {
+            insertNew(hashes[i], offsets[i], lengths[i]);
+        }
+    }
+
+    private void compactIfWasteful() throws IOException {
+        if (garbage >= MIN_COMPACTION_BYTES && garbage * 2 > logLength) {
+            compact();
+        }
+    }
+
+    private long slotHash(int slot) {
+        return index.getLong(INDEX_HEADER + slot * SLOT);
+    }
+
+    private long slotOffset(int slot) {
+        return index.getLong(INDEX_HEADER + slot * SLOT + SLOT_OFFSET);
+    }
+
+    private int slotLength(int slot) {
+        return index.getInt(INDEX_HEADER + slot * SLOT + SLOT_LENGTH);
+    }
+
+    private void setSlot(int slot, long hash, long offset, int length) {
+        int base = INDEX_HEADER + slot * SLOT;
+        index.putLong(base, hash);
+        index.putLong(base + SLOT_OFFSET, offset);
+        index.putInt(base + SLOT_LENGTH, length);
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 code units of user, a separator and dashboard
+     */
+    static long hash(LayoutKey key) {
+        long hash = 0xcbf29ce484222325L;
+        hash = hash(hash, key.getUser());
+        hash = (hash ^ 0xFFFF) * 0x100000001b3L;
+        return hash(hash, key.getDashboard());
+    }
+
+    private static long hash(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Spread the hash so the low bits used for the slot depend on all bits
+     */
+    private static long mix(long hash) {
+        return hash ^ (hash >>> 32) ^ (hash >>> 17);
+    }
+}
@@ -9,7 +9,7 @@ import java.util.Objects;
  * 
  * All fields are mutable to allow dynamic updates.
  */
-public class GridItemConfig implements Serializable {
+public class GridItemConfig implements Serializable, ItemValues {
     
     private static final long serialVersionUID = 1L;
     
@@ -102,29 +102,29 @@ public class GridItemConfig implements Serializable {
     // Fluent setters for builder-style usage
     
     public GridItemConfig withMinSize(int minW, int minH) {
-        this.minW = minW;
-        this.minH = minH;
+        setMinW(minW);
+        setMinH(minH);
         return this;
     }
     
     public GridItemConfig withMaxSize(int maxW, int maxH) {
-        this.maxW = maxW;
-        this.maxH = maxH;
+        setMaxW(maxW);
+        setMaxH(maxH);
         return this;
     }
     
     public GridItemConfig asStatic() {
-        this.isStatic = true;
+        setStatic(true);
         return this;
     }
     
     public GridItemConfig notDraggable() {
-        this.isDraggable = false;
+        setDraggable(false);
         return this;
     }
     
     public GridItemConfig notResizable() {
-        this.isResizable = false;
+        setResizable(false);
         return this;
     }
     
@@ -229,35 +229,38 @@ public class GridItemConfig implements Serializable {
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        // Compared through the getters so that views of packed storage
+        // (see GridLayout.ItemStorage.PACKED) equal plain configs
+        if (!(o instanceof GridItemConfig)) return false;
         GridItemConfig that = (GridItemConfig) o;
-        return x == that.x && y == that.y && w == that.w && h == that.h 
-                && isStatic == that.isStatic && isDraggable == that.isDraggable 
-                && isResizable == that.isResizable && Objects.equals(id, that.id) 
-                && Objects.equals(minW, that.minW) && Objects.equals(minH, that.minH) 
-                && Objects.equals(maxW, that.maxW) && Objects.equals(maxH, that.maxH);
+        return getX() == that.getX() && getY() == that.getY() && getW() == that.getW() && getH() == that.getH() 
+                && isStatic() == that.isStatic() && isDraggable() == that.isDraggable() 
+                && isResizable() == that.isResizable() && Objects.equals(getId(), that.getId()) 
+                && Objects.equals(getMinW(), that.getMinW()) && Objects.equals(getMinH(), that.getMinH()) 
+                && Objects.equals(getMaxW(), that.getMaxW()) && Objects.equals(getMaxH(), that.getMaxH());
     }
     
     @Override
     public int hashCode() {
-        return Objects.hash(id, x, y, w, h, minW, minH, maxW, maxH, isStatic, isDraggable, isResizable);
+        return Objects.hash(getId(), getX(), getY(), getW(), getH(), getMinW(), getMinH(), getMaxW(), getMaxH(),
+                isStatic(), isDraggable(), isResizable());
     }
     
     @Override
     public String toString() {
         return "GridItemConfig{" +
-                "id='" + id + '\'' +
-                ", x=" + x +
-                ", y=" + y +
-                ", w=" + w +
-                ", h=" + h +
-                ", minW=" + minW +
-                ", minH=" + minH +
-                ", maxW=" + maxW +
-                ", maxH=" + maxH +
-                ", isStatic=" + isStatic +
-                ", isDraggable=" + isDraggable +
-                ", isResizable=" + isResizable +
+                "id='" + getId() + '\'' +
+                ", x=" + getX() +
+                ", y=" + getY() +
+                ", w=" + getW() +
+                ", h=" + getH() +
+                ", minW=" + getMinW() +
+                ", minH=" + getMinH() +
+                ", maxW=" + getMaxW() +
+                ", maxH=" + getMaxH() +
+                ", isStatic=" + isStatic() +
+                ", isDraggable=" + isDraggable() +
+                ", isResizable=" + isResizable() +
                 '}';
     }
 }
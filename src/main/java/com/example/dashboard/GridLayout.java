@@ -12,9 +12,30 @@ public class GridLayout implements Serializable {
     private static final long serialVersionUID = 1L;
     
     /**
-     * Map of item ID to configuration. Uses LinkedHashMap to preserve insertion order.
+     * How the items of a layout are held in memory
      */
-    private final Map<String, GridItemConfig> items = new LinkedHashMap<>();
+    public enum ItemStorage {
+        /**
+         * Each item is a GridItemConfig object kept in insertion order (default)
+         */
+        OBJECTS,
+        
+        /**
+         * Item values are packed into parallel primitive arrays, and getItem()/getItems()
+         * return short-lived views that read and write them. Intended for layouts with
+         * thousands of items; note that putItem() copies the given config instead of
+         * keeping the instance, and that a view can no longer be used once its item is
+         * removed (removeItem() returns a plain copy).
+         */
+        PACKED
+    }
+    
+    private final ItemStorage storage;
+    
+    /**
+     * Item ID to configuration, in insertion order
+     */
+    private final ItemStore items;
     
     /**
      * Revision number incremented on each change. Used for echo suppression.
@@ -32,7 +53,8 @@ public class GridLayout implements Serializable {
     private int rowHeight = 30;
     
     /**
-     * Whether the grid should be compacted automatically
+     * Whether the grid should be compacted automatically (applied on the server
+     * by putItem/removeItem as well as by react-grid-layout on the client)
      */
     private boolean compact = true;
     
@@ -41,37 +63,236 @@ public class GridLayout implements Serializable {
      */
     private String compactType = "vertical";
     
+    /**
+     * Cell occupancy of all items, maintained incrementally for placement queries
+     */
+    private final OccupancyIndex occupancy;
+    
+    /**
+     * Row span of all items, maintained incrementally for row range queries
+     */
+    private final RowRangeIndex rows;
+    
+    /**
+     * Revision at which each present item was last added or changed
+     */
+    private final Map<String, Long> changedAt = new HashMap<>();
+    
+    /**
+     * Revision at which each item was removed, kept until discarded
+     */
+    private final Map<String, Long> removedAt = new HashMap<>();
+    
+    /**
+     * Oldest revision from which changesSince() can still produce a complete delta
+     */
+    private long changesFloor = 0;
+    
+    /**
+     * Whether compaction is postponed until the current batch of edits ends
+     */
+    private boolean compactionDeferred = false;
+    
+    /**
+     * Insertion position of each item, so snapshots keep the items' order
+     */
+    private final Map<String, Long> orderOf = new HashMap<>();
+    
+    private long nextOrder = 0;
+    
+    /**
+     * IDs of items added, changed or removed since the last published snapshot
+     */
+    private final Set<String> unpublished = new HashSet<>();
+    
+    /**
+     * Item map of the last published snapshot, or null if it must be rebuilt
+     */
+    private transient PersistentItemMap published;
+    
+    /**
+     * Last published snapshot
+     */
+    private transient LayoutSnapshot snapshot;
+    
+    /**
+     * Identity stamped on the snapshots this layout publishes, created on first use
+     */
+    private transient Object snapshotSource;
+    
+    /**
+     * Undo/redo steps recorded at checkpoints, or null while history is disabled
+     */
+    private LayoutHistory history;
+    
     public GridLayout() {
-        // Default constructor
+        this(12, 30);
     }
     
     public GridLayout(int columns, int rowHeight) {
+        this(columns, rowHeight, ItemStorage.OBJECTS);
+    }
+    
+    public GridLayout(int columns, int rowHeight, ItemStorage storage) {
+        this(columns, rowHeight, storage,
+                storage == ItemStorage.PACKED ? new PackedItemStore() : new MapItemStore(),
+                new OccupancyIndex(columns), new RowRangeIndex());
+    }
+    
+    private GridLayout(int columns, int rowHeight, ItemStorage storage, ItemStore items,
+                       OccupancyIndex occupancy, RowRangeIndex rows) {
         this.columns = columns;
         this.rowHeight = rowHeight;
+        this.storage = Objects.requireNonNull(storage, "Storage must not be null");
+        this.items = items;
+        this.occupancy = occupancy;
+        this.rows = rows;
     }
     
     /**
-     * Add or update an item configuration
+     * Add or update an item configuration.
+     * If compaction is enabled, the layout is compacted afterwards.
      */
     public void putItem(GridItemConfig config) {
-        if (config == null || config.getId() == null) {
-            throw new IllegalArgumentException("Config and ID must not be null");
-        }
-        items.put(config.getId(), config);
+        store(config);
+        compactIfEnabled();
         revision++;
     }
     
     /**
-     * Remove an item by ID
+     * Add or update an item whose position is already resolved (e.g. reported
+     * by the client after react-grid-layout compacted it, or restored from a
+     * saved layout), without compacting again
+     */
+    void putResolvedItem(GridItemConfig config) {
+        store(config);
+        revision++;
+    }
+    
+    /**
+     * Update existing items with positions already resolved by the client.
+     * Unknown IDs and items equal to the current state are skipped; the
+     * revision is incremented once if anything changed.
+     * 
+     * @return The number of items that changed
+     */
+    public int updateResolvedItems(Collection<GridItemConfig> updates) {
+        int changed = storeChanged(updates);
+        if (changed > 0) {
+            revision++;
+        }
+        return changed;
+    }
+    
+    /**
+     * Update existing items with the positions of a saved layout, then
+     * compact once, all in one revision. Unknown IDs are skipped. Unlike a
+     * putItem per item, no item is compacted against a half-restored layout.
+     * 
+     * @return The number of items that changed
+     */
+    int restoreItems(Collection<GridItemConfig> saved) {
+        int changed = storeChanged(saved);
+        if (changed > 0) {
+            compactIfEnabled();
+            revision++;
+        }
+        return changed;
+    }
+    
+    private int storeChanged(Collection<GridItemConfig> updates) {
+        int changed = 0;
+        for (GridItemConfig update : updates) {
+            GridItemConfig current = items.get(update.getId());
+            if (current != null && !current.equals(update)) {
+                store(update);
+                changed++;
+            }
+        }
+        return changed;
+    }
+    
+    /**
+     * Remove an item by ID.
+     * If compaction is enabled, the remaining items are compacted afterwards.
      */
     public GridItemConfig removeItem(String id) {
-        GridItemConfig removed = items.remove(id);
+        GridItemConfig removed = detach(id);
         if (removed != null) {
+            compactIfEnabled();
             revision++;
         }
         return removed;
     }
     
+    /**
+     * Remove an item in the revision about to be published
+     */
+    private GridItemConfig detach(String id) {
+        GridItemConfig removed = items.remove(id);
+        if (removed != null) {
+            occupancy.remove(id);
+            rows.remove(id);
+            changedAt.remove(id);
+            orderOf.remove(id);
+            unpublished.add(id);
+            removedAt.put(id, revision + 1);
+        }
+        return removed;
+    }
+    
+    private void store(GridItemConfig config) {
+        if (config == null || config.getId() == null) {
+            throw new IllegalArgumentException("Config and ID must not be null");
+        }
+        if (!items.containsKey(config.getId())) {
+            orderOf.put(config.getId(), nextOrder++);
+        }
+        GridItemConfig stored = items.put(config);
+        occupancy.add(stored);
+        rows.add(stored);
+        touch(config.getId());
+    }
+    
+    /**
+     * Record that an item changes in the revision about to be published
+     */
+    private void touch(String id) {
+        changedAt.put(id, revision + 1);
+        removedAt.remove(id);
+        unpublished.add(id);
+    }
+    
+    /**
+     * Apply server-side compaction so that the layout held here matches what
+     * react-grid-layout renders on the client
+     */
+    private boolean compactIfEnabled() {
+        if (!compact || compactionDeferred) {
+            return false;
+        }
+        List<GridItemConfig> moved = LayoutCompactor.compact(items.values(), columns, compactType);
+        for (GridItemConfig item : moved) {
+            occupancy.add(item);
+            rows.add(item);
+            touch(item.getId());
+        }
+        return !moved.isEmpty();
+    }
+    
+    /**
+     * Postpone compaction while a batch of edits is applied, so that N puts
+     * cost one compaction pass instead of N. Ending the deferral compacts once
+     * (in a new revision if anything moved).
+     */
+    void setCompactionDeferred(boolean deferred) {
+        boolean resume = compactionDeferred && !deferred;
+        compactionDeferred = deferred;
+        if (resume && compactIfEnabled()) {
+            revision++;
+        }
+    }
+    
     /**
      * Get item configuration by ID
      */
@@ -93,6 +314,21 @@ public class GridLayout implements Serializable {
         return new ArrayList<>(items.values());
     }
     
+    /**
+     * Get how items are held in memory
+     */
+    public ItemStorage getItemStorage() {
+        return storage;
+    }
+    
+    /**
+     * Read-only live view of the items, for callers that only iterate
+     * (e.g. serialization) and should not pay for a copy
+     */
+    Collection<GridItemConfig> itemsView() {
+        return items.values();
+    }
+    
     /**
      * Get all item IDs
      */
@@ -113,7 +349,11 @@ public class GridLayout implements Serializable {
     public void clear() {
         if (!items.isEmpty()) {
             items.clear();
+            occupancy.clear();
+            rows.clear();
+            forgetPublished();
             revision++;
+            resetChanges();
         }
     }
     
@@ -122,49 +362,294 @@ public class GridLayout implements Serializable {
      */
     public void setItems(List<GridItemConfig> newItems) {
         items.clear();
-        newItems.forEach(this::putItem);
+        occupancy.clear();
+        rows.clear();
+        forgetPublished();
+        newItems.forEach(this::store);
+        compactIfEnabled();
         revision++;
+        resetChanges();
     }
     
     /**
-     * Find the next available position for a new item
+     * Get the items added, changed or removed after the given revision.
+     * Returns null if the delta cannot be produced (the revision is older than
+     * the retained change history, e.g. after clear() or setItems(), or newer
+     * than the current revision); callers should fall back to a full snapshot.
      */
-    public GridItemConfig findNextAvailablePosition(String id, int width, int height) {
-        // Simple algorithm: find the first available spot
-        // In production, you might want a more sophisticated algorithm
+    public LayoutChanges changesSince(long sinceRevision) {
+        if (sinceRevision < changesFloor || sinceRevision > revision) {
+            return null;
+        }
         
-        Set<String> occupied = new HashSet<>();
+        List<GridItemConfig> updated = new ArrayList<>();
         for (GridItemConfig item : items.values()) {
-            for (int x = item.getX(); x < item.getX() + item.getW(); x++) {
-                for (int y = item.getY(); y < item.getY() + item.getH(); y++) {
-                    occupied.add(x + "," + y);
-                }
+            if (changedAt.getOrDefault(item.getId(), 0L) > sinceRevision) {
+                updated.add(item);
+            }
+        }
+        
+        List<String> removed = new ArrayList<>();
+        removedAt.forEach((id, removedRevision) -> {
+            if (removedRevision > sinceRevision) {
+                removed.add(id);
             }
+        });
+        
+        return new LayoutChanges(sinceRevision, revision, updated, removed);
+    }
+    
+    /**
+     * Forget removals up to the given revision once every consumer has seen them.
+     * Deltas can no longer be requested from before that revision.
+     */
+    public void discardChangesUpTo(long upToRevision) {
+        if (upToRevision <= changesFloor) {
+            return;
+        }
+        changesFloor = Math.min(upToRevision, revision);
+        removedAt.values().removeIf(removedRevision -> removedRevision <= changesFloor);
+    }
+    
+    /**
+     * Start change history afresh at the current revision
+     */
+    private void resetChanges() {
+        changesFloor = revision;
+        removedAt.clear();
+        // Items dropped by clear() or setItems() never went through detach()
+        changedAt.keySet().removeIf(id -> !items.containsKey(id));
+        changedAt.replaceAll((id, changedRevision) -> revision);
+    }
+    
+    /**
+     * Get an immutable snapshot of the layout at the current revision.
+     * Repeated calls without intervening changes return the same instance;
+     * after a change only the affected entries are copied.
+     */
+    public LayoutSnapshot getSnapshot() {
+        if (snapshot != null && snapshot.getRevision() == revision && unpublished.isEmpty()
+                && snapshot.getColumns() == columns && snapshot.getRowHeight() == rowHeight
+                && snapshot.isCompact() == compact && Objects.equals(snapshot.getCompactType(), compactType)) {
+            return snapshot;
         }
         
-        // Try to find a spot
-        for (int y = 0; y < 1000; y++) { // arbitrary max
-            for (int x = 0; x <= columns - width; x++) {
-                boolean fits = true;
-                for (int dx = 0; dx < width && fits; dx++) {
-                    for (int dy = 0; dy < height && fits; dy++) {
-                        if (occupied.contains((x + dx) + "," + (y + dy))) {
-                            fits = false;
-                        }
-                    }
+        PersistentItemMap map = published;
+        if (map == null) {
+            map = PersistentItemMap.EMPTY;
+            for (GridItemConfig item : items.values()) {
+                map = map.put(LayoutItem.of(item, orderOf.get(item.getId())));
+            }
+        } else {
+            for (String id : unpublished) {
+                GridItemConfig item = items.get(id);
+                if (item == null) {
+                    map = map.remove(id);
+                    continue;
                 }
-                if (fits) {
-                    return new GridItemConfig(id, x, y, width, height);
+                long order = orderOf.get(id);
+                LayoutItem current = map.get(id);
+                if (current == null || current.order != order || !current.matches(item)) {
+                    map = map.put(LayoutItem.of(item, order));
                 }
             }
         }
-        
-        // Fallback: place at the end
-        int maxY = items.values().stream()
-                .mapToInt(item -> item.getY() + item.getH())
-                .max()
-                .orElse(0);
-        return new GridItemConfig(id, 0, maxY, width, height);
+        unpublished.clear();
+        published = map;
+        if (snapshotSource == null) {
+            snapshotSource = new Object();
+        }
+        snapshot = new LayoutSnapshot(revision, columns, rowHeight, compact, compactType, map, snapshotSource);
+        return snapshot;
+    }
+    
+    /**
+     * Keep undo/redo history of item changes, recorded at each {@link #checkpoint()}.
+     * Each step stores only the items that changed; once the steps hold more
+     * than the given number of item changes in total, the oldest are dropped.
+     * Copies of the layout start without history.
+     * 
+     * @param maxItemChanges Maximum number of item changes kept, 0 to disable history
+     */
+    public void setHistoryLimit(int maxItemChanges) {
+        if (maxItemChanges < 0) {
+            throw new IllegalArgumentException("History limit must not be negative: " + maxItemChanges);
+        }
+        if (history != null && history.maxChanges() == maxItemChanges) {
+            return;
+        }
+        history = maxItemChanges > 0 ? new LayoutHistory(maxItemChanges, getSnapshot()) : null;
+    }
+    
+    public int getHistoryLimit() {
+        return history != null ? history.maxChanges() : 0;
+    }
+    
+    /**
+     * Record the item changes since the previous checkpoint as one undo step,
+     * and drop any redo steps if there were changes. Does nothing while
+     * history is disabled.
+     * 
+     * @return true if a step was recorded
+     */
+    public boolean checkpoint() {
+        return history != null && history.record(getSnapshot());
+    }
+    
+    /**
+     * Drop all undo/redo steps, making the current state the oldest one
+     */
+    public void clearHistory() {
+        if (history != null) {
+            history.clear(getSnapshot());
+        }
+    }
+    
+    /**
+     * Check if {@link #undo()} would change anything
+     */
+    public boolean canUndo() {
+        return history != null && (history.canUndo() || history.hasChanges(getSnapshot()));
+    }
+    
+    /**
+     * Check if {@link #redo()} would change anything
+     */
+    public boolean canRedo() {
+        return history != null && history.canRedo() && !history.hasChanges(getSnapshot());
+    }
+    
+    /**
+     * Revert the items changed in the last undo step (changes since the last
+     * checkpoint are checkpointed first). The revert is a new revision.
+     * 
+     * @return false if there is nothing to undo
+     */
+    public boolean undo() {
+        checkpoint();
+        if (history == null || !history.canUndo()) {
+            return false;
+        }
+        LayoutHistory.Step step = history.undo();
+        applyHistoryStep(step.before, step.after);
+        history.moveTo(getSnapshot(), step.fromRevision);
+        return true;
+    }
+    
+    /**
+     * Reapply the items of the last undone step. The redo is a new revision.
+     * 
+     * @return false if there is nothing to redo (also after new changes)
+     */
+    public boolean redo() {
+        checkpoint();
+        if (history == null || !history.canRedo()) {
+            return false;
+        }
+        LayoutHistory.Step step = history.redo();
+        applyHistoryStep(step.after, step.before);
+        history.moveTo(getSnapshot(), step.toRevision);
+        return true;
+    }
+    
+    /**
+     * Undo or redo until the items are as they were at a checkpoint
+     * 
+     * @param revision The revision of the layout when the checkpoint was taken
+     * @return false if that checkpoint is not (or no longer) in the history
+     */
+    public boolean revertTo(long revision) {
+        if (history == null) {
+            return false;
+        }
+        checkpoint();
+        int undos = history.undoDistance(revision);
+        if (undos >= 0) {
+            for (int i = 0; i < undos; i++) {
+                undo();
+            }
+            return true;
+        }
+        int redos = history.redoDistance(revision);
+        for (int i = 0; i < redos; i++) {
+            redo();
+        }
+        return redos >= 0;
+    }
+    
+    /**
+     * Set items to the state recorded in a history step, as one revision.
+     * Positions come from a checkpoint and are not compacted again.
+     */
+    private void applyHistoryStep(LayoutItem[] target, LayoutItem[] current) {
+        for (int i = 0; i < target.length; i++) {
+            if (target[i] == null) {
+                detach(current[i].getId());
+            } else {
+                store(target[i].toConfig());
+            }
+        }
+        revision++;
+    }
+    
+    /**
+     * Publish an existing snapshot with the same contents as this layout, so
+     * that an unchanged layout built from a snapshot hands out that instance
+     * and later snapshots share its entries
+     */
+    void adoptSnapshot(LayoutSnapshot source) {
+        orderOf.clear();
+        nextOrder = 0;
+        // Order does not matter here, so skip sorting the items
+        source.itemMap().forEach(item -> {
+            orderOf.put(item.getId(), item.order);
+            nextOrder = Math.max(nextOrder, item.order + 1);
+        });
+        unpublished.clear();
+        published = source.itemMap();
+        snapshot = source;
+    }
+    
+    /**
+     * Drop the published item map after all items were replaced
+     */
+    private void forgetPublished() {
+        orderOf.clear();
+        unpublished.clear();
+        published = null;
+    }
+    
+    /**
+     * Find the next available position for a new item.
+     * Returns the first free slot in reading order (top to bottom, left to right);
+     * items wider than the grid are placed at column 0 below all other items.
+     */
+    public GridItemConfig findNextAvailablePosition(String id, int width, int height) {
+        long slot = occupancy.findFree(width, height);
+        if (slot < 0) {
+            return new GridItemConfig(id, 0, occupancy.getHeight(), width, height);
+        }
+        return new GridItemConfig(id, (int) slot, (int) (slot >>> 32), width, height);
+    }
+    
+    /**
+     * Get the items covering at least one of the rows from firstRow to
+     * lastRow (both inclusive), ordered by their top row. Answered from an
+     * index kept up to date on every change, so the cost grows with the
+     * number of items returned rather than the size of the layout.
+     */
+    public List<GridItemConfig> getItemsInRows(int firstRow, int lastRow) {
+        List<GridItemConfig> found = new ArrayList<>();
+        rows.query(firstRow, lastRow, id -> found.add(items.get(id)));
+        return found;
+    }
+    
+    /**
+     * Check whether a rectangle lies inside the grid columns and does not
+     * overlap any item
+     */
+    public boolean isAreaFree(int x, int y, int width, int height) {
+        return occupancy.isFree(x, y, width, height);
     }
     
     // Getters and setters
@@ -175,6 +660,7 @@ public class GridLayout implements Serializable {
     
     public void setRevision(long revision) {
         this.revision = revision;
+        resetChanges();
     }
     
     public int getColumns() {
@@ -183,6 +669,7 @@ public class GridLayout implements Serializable {
     
     public void setColumns(int columns) {
         this.columns = columns;
+        occupancy.rebuild(columns, items.values());
         revision++;
     }
     
@@ -201,6 +688,7 @@ public class GridLayout implements Serializable {
     
     public void setCompact(boolean compact) {
         this.compact = compact;
+        compactIfEnabled();
         revision++;
     }
     
@@ -210,6 +698,7 @@ public class GridLayout implements Serializable {
     
     public void setCompactType(String compactType) {
         this.compactType = compactType;
+        compactIfEnabled();
         revision++;
     }
     
@@ -217,24 +706,17 @@ public class GridLayout implements Serializable {
      * Create a deep copy of this layout
      */
     public GridLayout copy() {
-        GridLayout copy = new GridLayout(columns, rowHeight);
+        GridLayout copy = new GridLayout(columns, rowHeight, storage, items.copy(), occupancy.copy(), rows.copy());
         copy.compact = this.compact;
         copy.compactType = this.compactType;
         copy.revision = this.revision;
-        
-        this.items.values().forEach(item -> {
-            GridItemConfig itemCopy = new GridItemConfig(
-                item.getId(), item.getX(), item.getY(), item.getW(), item.getH()
-            );
-            itemCopy.setMinW(item.getMinW());
-            itemCopy.setMinH(item.getMinH());
-            itemCopy.setMaxW(item.getMaxW());
-            itemCopy.setMaxH(item.getMaxH());
-            itemCopy.setStatic(item.isStatic());
-            itemCopy.setDraggable(item.isDraggable());
-            itemCopy.setResizable(item.isResizable());
-            copy.items.put(itemCopy.getId(), itemCopy);
-        });
+        copy.changesFloor = this.revision;
+        copy.orderOf.putAll(this.orderOf);
+        copy.nextOrder = this.nextOrder;
+        copy.unpublished.addAll(this.unpublished);
+        // Published snapshots are immutable and can be shared
+        copy.published = this.published;
+        copy.snapshot = this.snapshot;
         
         return copy;
     }
@@ -0,0 +1,40 @@
+package com.example.dashboard;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * {@link LayoutStore} keeping serialized layouts in memory.
+ * Useful for demos and tests; contents are lost when the JVM exits.
+ */
+public final class InMemoryLayoutStore implements LayoutStore {
+
+    private final Map<LayoutKey, String> layouts = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(LayoutKey key, LayoutSnapshot snapshot) {
+        layouts.put(key, LayoutSerializer.toJson(snapshot));
+    }
+
+    @Override
+    public GridLayout load(LayoutKey key) {
+        String json = layouts.get(key);
+        return json != null ? LayoutSerializer.fromJson(json) : null;
+    }
+
+    @Override
+    public List<LayoutKey> list(String user) {
+        return layouts.keySet().stream()
+                .filter(key -> key.getUser().equals(user))
+                .sorted(Comparator.comparing(LayoutKey::getDashboard))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean delete(LayoutKey key) {
+        return layouts.remove(key) != null;
+    }
+}
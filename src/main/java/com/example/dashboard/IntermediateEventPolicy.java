@@ -0,0 +1,124 @@
+package com.example.dashboard;
+
+import java.io.Serializable;
+
+/**
+ * Controls how intermediate layout changes (sent by the client while a drag
+ * or resize is in progress) reach the server and its
+ * {@link LayoutChangeEvent} listeners. Final events, sent when the drag or
+ * resize ends, are always delivered regardless of the policy.
+ *
+ * Usage example:
+ * <pre>
+ * grid.setIntermediateEventPolicy(IntermediateEventPolicy.sampled(4));
+ * </pre>
+ */
+public final class IntermediateEventPolicy implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * How intermediate events are handled
+     */
+    public enum Mode {
+        /**
+         * Every intermediate event is sent and delivered
+         */
+        ALL,
+
+        /**
+         * Intermediate events are not sent by the client at all
+         */
+        NONE,
+
+        /**
+         * Intermediate events are sent and delivered at most at a fixed rate
+         */
+        SAMPLED,
+
+        /**
+         * Intermediate events arriving in the same server round-trip are
+         * coalesced, and listeners receive only the latest one per item.
+         * Pending intermediates are dropped if the final event arrives in
+         * the same round-trip.
+         */
+        LATEST_PER_ITEM
+    }
+
+    private static final IntermediateEventPolicy ALL = new IntermediateEventPolicy(Mode.ALL, 0);
+    private static final IntermediateEventPolicy NONE = new IntermediateEventPolicy(Mode.NONE, 0);
+    private static final IntermediateEventPolicy LATEST_PER_ITEM = new IntermediateEventPolicy(Mode.LATEST_PER_ITEM, 0);
+
+    private final Mode mode;
+    private final int periodMillis;
+
+    private IntermediateEventPolicy(Mode mode, int periodMillis) {
+        this.mode = mode;
+        this.periodMillis = periodMillis;
+    }
+
+    /**
+     * Deliver every intermediate event (the default)
+     */
+    public static IntermediateEventPolicy all() {
+        return ALL;
+    }
+
+    /**
+     * Deliver only final events; the client does not send intermediates
+     */
+    public static IntermediateEventPolicy none() {
+        return NONE;
+    }
+
+    /**
+     * Deliver intermediate events at most {@code hz} times per second.
+     * The client throttles sending to the same rate.
+     *
+     * @param hz Maximum number of intermediate events per second, must be positive
+     */
+    public static IntermediateEventPolicy sampled(double hz) {
+        if (!(hz > 0)) {
+            throw new IllegalArgumentException("Rate must be positive: " + hz);
+        }
+        return new IntermediateEventPolicy(Mode.SAMPLED, (int) Math.max(1, Math.round(1000 / hz)));
+    }
+
+    /**
+     * Deliver only the latest intermediate event per item in each server round-trip
+     */
+    public static IntermediateEventPolicy latestPerItem() {
+        return LATEST_PER_ITEM;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Minimum time between delivered intermediate events for {@link Mode#SAMPLED}, 0 otherwise
+     */
+    public int getPeriodMillis() {
+        return periodMillis;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IntermediateEventPolicy that = (IntermediateEventPolicy) o;
+        return mode == that.mode && periodMillis == that.periodMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * mode.hashCode() + periodMillis;
+    }
+
+    @Override
+    public String toString() {
+        return mode == Mode.SAMPLED
+                ? "IntermediateEventPolicy{" + mode + ", periodMillis=" + periodMillis + '}'
+                : "IntermediateEventPolicy{" + mode + '}';
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.dashboard;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Backing storage of the items of a {@link GridLayout}, keyed by item ID and
+ * iterated in insertion order (re-putting an existing ID keeps its position).
+ */
+interface ItemStore extends Serializable {
+
+    /**
+     * Get the stored item, or null if not present. Changes made through the
+     * returned config are changes to the stored item.
+     */
+    GridItemConfig get(String id);
+
+    /**
+     * Store an item, replacing any item with the same ID
+     *
+     * @return The stored item, which may be a different object than the argument
+     */
+    GridItemConfig put(GridItemConfig config);
+
+    /**
+     * Remove an item
+     *
+     * @return The removed item, no longer connected to the store, or null
+     */
+    GridItemConfig remove(String id);
+
+    boolean containsKey(String id);
+
+    int size();
+
+    boolean isEmpty();
+
+    void clear();
+
+    /**
+     * Live, read-only view of the stored items in insertion order
+     */
+    Collection<GridItemConfig> values();
+
+    /**
+     * Live, read-only view of the IDs in insertion order
+     */
+    Set<String> keySet();
+
+    /**
+     * Create an independent store with copies of all items
+     */
+    ItemStore copy();
+}
@@ -0,0 +1,33 @@
+package com.example.dashboard;
+
+/**
+ * Read access to the values of a grid item, shared by the mutable
+ * {@link GridItemConfig} and the immutable {@link LayoutItem} so that both
+ * are serialized by the same code.
+ */
+interface ItemValues {
+
+    String getId();
+
+    int getX();
+
+    int getY();
+
+    int getW();
+
+    int getH();
+
+    Integer getMinW();
+
+    Integer getMinH();
+
+    Integer getMaxW();
+
+    Integer getMaxH();
+
+    boolean isStatic();
+
+    boolean isDraggable();
+
+    boolean isResizable();
+}
@@ -0,0 +1,339 @@
+package com.example.dashboard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Compact binary form of a GridLayout, for storing many layouts where the
+ * JSON from {@link LayoutSerializer} is too verbose. Decoding needs no JSON
+ * library, and a decoded layout is identical to the one
+ * {@link LayoutSerializer#fromJson(String)} produces from the JSON of the
+ * same layout. The JSON form leaves out a null compact type, so reading it
+ * back gives the default; a null compact type decodes to the default here too.
+ *
+ * Format (version 1). Integers are zigzag varints; lengths are plain varints:
+ * <pre>
+ * magic 0xD6, version 0x01
+ * revision, columns, rowHeight
+ * layout flags: bit 0 compact, bits 1-2 compactType (0 null, 1 vertical,
+ *               2 horizontal, 3 other, followed by the type string)
+ * item count
+ * per item:
+ *   id: length of the prefix shared with the previous id, then the rest
+ *       as a length-prefixed UTF-8 string
+ *   item flags: bit 0 static, bit 1 draggable, bit 2 resizable,
+ *               bits 3-6 presence of minW, minH, maxW, maxH
+ *   x, y, w, h, then each present min/max value
+ * </pre>
+ */
+public final class LayoutBinaryCodec {
+
+    static final int MAGIC = 0xD6;
+
+    static final int VERSION = 1;
+
+    private static final int COMPACT = 1;
+    private static final int TYPE_SHIFT = 1;
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_VERTICAL = 1;
+    private static final int TYPE_HORIZONTAL = 2;
+    private static final int TYPE_OTHER = 3;
+
+    private static final int STATIC = 1;
+    private static final int DRAGGABLE = 1 << 1;
+    private static final int RESIZABLE = 1 << 2;
+    private static final int HAS_MIN_W = 1 << 3;
+    private static final int HAS_MIN_H = 1 << 4;
+    private static final int HAS_MAX_W = 1 << 5;
+    private static final int HAS_MAX_H = 1 << 6;
+
+    private LayoutBinaryCodec() {
+        // Utility class
+    }
+
+    /**
+     * Encode a layout in the current binary format version
+     */
+    public static byte[] toBytes(GridLayout layout) {
+        return toBytes(layout.getRevision(), layout.getColumns(), layout.getRowHeight(), layout.isCompact(),
+                layout.getCompactType(), layout.itemsView());
+    }
+
+    /**
+     * Encode a layout snapshot in the current binary format version. Gives
+     * the same bytes as encoding the layout it was taken from, without
+     * building a mutable copy of it.
+     */
+    public static byte[] toBytes(LayoutSnapshot snapshot) {
+        return toBytes(snapshot.getRevision(), snapshot.getColumns(), snapshot.getRowHeight(), snapshot.isCompact(),
+                snapshot.getCompactType(), snapshot.getItems());
+    }
+
+    private static byte[] toBytes(long revision, int columns, int rowHeight, boolean compact, String compactType,
+                                  Collection<? extends ItemValues> items) {
+        Output out = new Output(16 + items.size() * 12);
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+
+        out.writeSignedLong(revision);
+        out.writeSigned(columns);
+        out.writeSigned(rowHeight);
+
+        int type = compactTypeCode(compactType);
+        out.writeByte((compact ? COMPACT : 0) | (type << TYPE_SHIFT));
+        if (type == TYPE_OTHER) {
+            out.writeString(compactType);
+        }
+
+        out.writeUnsigned(items.size());
+        String previousId = "";
+        for (ItemValues item : items) {
+            String id = item.getId();
+            int shared = sharedPrefix(previousId, id);
+            out.writeUnsigned(shared);
+            out.writeString(id.substring(shared));
+            previousId = id;
+
+            out.writeByte(itemFlags(item));
+            out.writeSigned(item.getX());
+            out.writeSigned(item.getY());
+            out.writeSigned(item.getW());
+            out.writeSigned(item.getH());
+            if (item.getMinW() != null) out.writeSigned(item.getMinW());
+            if (item.getMinH() != null) out.writeSigned(item.getMinH());
+            if (item.getMaxW() != null) out.writeSigned(item.getMaxW());
+            if (item.getMaxH() != null) out.writeSigned(item.getMaxH());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a layout written by {@link #toBytes(GridLayout)}.
+     * Null or empty input yields an empty layout.
+     *
+     * @throws IllegalArgumentException If the data is not a supported layout encoding
+     */
+    public static GridLayout fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return new GridLayout();
+        }
+
+        Input in = new Input(bytes);
+        if (in.readByte() != MAGIC) {
+            throw new IllegalArgumentException("Not a binary layout");
+        }
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary layout version: " + version);
+        }
+
+        long revision = in.readSignedLong();
+        int columns = in.readSigned();
+        int rowHeight = in.readSigned();
+        int layoutFlags = in.readByte();
+        int type = (layoutFlags >>> TYPE_SHIFT) & 0b11;
+        String compactType = type == TYPE_OTHER ? in.readString() : compactType(type);
+
+        // Same sequence as LayoutSerializer.fromJson, so both forms decode to the same revision
+        GridLayout layout = new GridLayout();
+        layout.setColumns(columns);
+        layout.setRowHeight(rowHeight);
+        layout.setCompact((layoutFlags & COMPACT) != 0);
+        if (type != TYPE_NULL) {
+            // Null is left out of the JSON form, which then keeps the default
+            layout.setCompactType(compactType);
+        }
+        layout.setRevision(revision);
+
+        int count = in.readUnsigned();
+        String previousId = "";
+        for (int i = 0; i < count; i++) {
+            int shared = in.readUnsigned();
+            if (shared > previousId.length()) {
+                throw new IllegalArgumentException("Corrupt binary layout: bad id prefix");
+            }
+            String id = previousId.substring(0, shared) + in.readString();
+            previousId = id;
+
+            int flags = in.readByte();
+            GridItemConfig item = new GridItemConfig(id, in.readSigned(), in.readSigned(),
+                    in.readSigned(), in.readSigned());
+            if ((flags & HAS_MIN_W) != 0) item.setMinW(in.readSigned());
+            if ((flags & HAS_MIN_H) != 0) item.setMinH(in.readSigned());
+            if ((flags & HAS_MAX_W) != 0) item.setMaxW(in.readSigned());
+            if ((flags & HAS_MAX_H) != 0) item.setMaxH(in.readSigned());
+            item.setStatic((flags & STATIC) != 0);
+            item.setDraggable((flags & DRAGGABLE) != 0);
+            item.setResizable((flags & RESIZABLE) != 0);
+
+            layout.putResolvedItem(item);
+        }
+        return layout;
+    }
+
+    private static int itemFlags(ItemValues item) {
+        int flags = 0;
+        if (item.isStatic()) flags |= STATIC;
+        if (item.isDraggable()) flags |= DRAGGABLE;
+        if (item.isResizable()) flags |= RESIZABLE;
+        if (item.getMinW() != null) flags |= HAS_MIN_W;
+        if (item.getMinH() != null) flags |= HAS_MIN_H;
+        if (item.getMaxW() != null) flags |= HAS_MAX_W;
+        if (item.getMaxH() != null) flags |= HAS_MAX_H;
+        return flags;
+    }
+
+    private static int compactTypeCode(String compactType) {
+        if (compactType == null) {
+            return TYPE_NULL;
+        }
+        switch (compactType) {
+            case "vertical":
+                return TYPE_VERTICAL;
+            case "horizontal":
+                return TYPE_HORIZONTAL;
+            default:
+                return TYPE_OTHER;
+        }
+    }
+
+    private static String compactType(int code) {
+        switch (code) {
+            case TYPE_VERTICAL:
+                return "vertical";
+            case TYPE_HORIZONTAL:
+                return "horizontal";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Length of the common prefix, never splitting a surrogate pair
+     */
+    private static int sharedPrefix(String a, String b) {
+        int max = Math.min(a.length(), b.length());
+        int n = 0;
+        while (n < max && a.charAt(n) == b.charAt(n)) {
+            n++;
+        }
+        if (n > 0 && Character.isHighSurrogate(a.charAt(n - 1))) {
+            n--;
+        }
+        return n;
+    }
+
+    /**
+     * Growable byte buffer with varint writers
+     */
+    private static final class Output {
+
+        private byte[] buf;
+        private int pos;
+
+        Output(int initialCapacity) {
+            buf = new byte[initialCapacity];
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeUnsigned(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        void writeSigned(int value) {
+            writeUnsigned(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+        }
+
+        void writeSignedLong(long value) {
+            writeUnsigned((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeUnsigned(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, buf, pos, utf8.length);
+            pos += utf8.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+
+        private void ensure(int extra) {
+            if (pos + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+            }
+        }
+    }
+
+    /**
+     * Bounds-checked reader over an encoded layout
+     */
+    private static final class Input {
+
+        private final byte[] buf;
+        private int pos;
+
+        Input(byte[] buf) {
+            this.buf = buf;
+        }
+
+        int readByte() {
+            if (pos >= buf.length) {
+                throw new IllegalArgumentException("Corrupt binary layout: unexpected end of data");
+            }
+            return buf[pos++] & 0xFF;
+        }
+
+        long readUnsignedLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Corrupt binary layout: varint too long");
+        }
+
+        int readUnsigned() {
+            long value = readUnsignedLong();
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Corrupt binary layout: length out of range");
+            }
+            return (int) value;
+        }
+
+        int readSigned() {
+            int raw = (int) readUnsignedLong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        long readSignedLong() {
+            long raw = readUnsignedLong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        String readString() {
+            int length = readUnsigned();
+            if (length > buf.length - pos) {
+                throw new IllegalArgumentException("Corrupt binary layout: unexpected end of data");
+            }
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+    }
+}
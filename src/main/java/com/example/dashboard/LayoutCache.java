@@ -0,0 +1,182 @@
+package com.example.dashboard;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded cache of decoded layouts, one revision per {@link LayoutKey}.
+ *
+ * Layouts are held as immutable {@link LayoutSnapshot}s, so one cached
+ * layout can be handed to any number of grids: each takes its own mutable
+ * copy with {@link LayoutSnapshot#toGridLayout()}. The cache is bounded by
+ * weight, one unit per layout plus one per item, and evicts the least
+ * recently used layouts first. A layout heavier than the whole cache is
+ * not cached.
+ *
+ * Thread-safe.
+ */
+public final class LayoutCache {
+
+    /**
+     * Weight bound used when none is given
+     */
+    public static final long DEFAULT_MAX_WEIGHT = 100_000;
+
+    private final long maxWeight;
+    private final LinkedHashMap<LayoutKey, LayoutSnapshot> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Create a cache with the default weight bound
+     */
+    public LayoutCache() {
+        this(DEFAULT_MAX_WEIGHT);
+    }
+
+    /**
+     * Create a cache
+     *
+     * @param maxWeight Maximum total weight: number of cached layouts plus their items
+     */
+    public LayoutCache(long maxWeight) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Maximum weight must be positive: " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Get the cached layout for a key, whatever its revision
+     *
+     * @return The cached layout, or null on a miss
+     */
+    public synchronized LayoutSnapshot get(LayoutKey key) {
+        LayoutSnapshot snapshot = entries.get(key);
+        if (snapshot != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Get the cached layout for a key if it is at the given revision
+     *
+     * @return The cached layout, or null on a miss
+     */
+    public synchronized LayoutSnapshot get(LayoutKey key, long revision) {
+        LayoutSnapshot snapshot = entries.get(key);
+        if (snapshot != null && snapshot.getRevision() == revision) {
+            hits++;
+            return snapshot;
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Get the cached layout for a key without counting a hit or miss
+     */
+    synchronized LayoutSnapshot peek(LayoutKey key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Cache a layout, replacing any other revision cached for the key
+     */
+    public synchronized void put(LayoutKey key, LayoutSnapshot snapshot) {
+        Objects.requireNonNull(key, "Key must not be null");
+        Objects.requireNonNull(snapshot, "Snapshot must not be null");
+
+        LayoutSnapshot previous = entries.remove(key);
+        if (previous != null) {
+            weight -= weigh(previous);
+        }
+
+        long added = weigh(snapshot);
+        if (added > maxWeight) {
+            return;
+        }
+        entries.put(key, snapshot);
+        weight += added;
+
+        Iterator<Map.Entry<LayoutKey, LayoutSnapshot>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight) {
+            Map.Entry<LayoutKey, LayoutSnapshot> entry = eldest.next();
+            weight -= weigh(entry.getValue());
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Remove the cached layout for a key
+     */
+    public synchronized void invalidate(LayoutKey key) {
+        LayoutSnapshot previous = entries.remove(key);
+        if (previous != null) {
+            weight -= weigh(previous);
+        }
+    }
+
+    /**
+     * Remove all cached layouts. Counters are kept.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Get the number of cached layouts
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get the total weight of the cached layouts
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    private static long weigh(LayoutSnapshot snapshot) {
+        return 1L + snapshot.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "LayoutCache{" +
+                "size=" + entries.size() +
+                ", weight=" + weight +
+                ", maxWeight=" + maxWeight +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                '}';
+    }
+}
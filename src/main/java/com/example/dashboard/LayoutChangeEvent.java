@@ -36,6 +36,7 @@ public class LayoutChangeEvent extends ComponentEvent<DashboardGrid> {
     }
     
     private final GridLayout layout;
+    private final LayoutSnapshot snapshot;
     private final String affectedItemId;
     private final ChangeReason reason;
     private final boolean isDragging;
@@ -47,7 +48,7 @@ public class LayoutChangeEvent extends ComponentEvent<DashboardGrid> {
      * 
      * @param source The dashboard grid component
      * @param fromClient Whether this event originated from the client
-     * @param layout The updated layout
+     * @param layout The updated layout; its snapshot at this moment is captured
      * @param affectedItemId The ID of the item that changed (may be null for bulk updates)
      * @param reason The reason for the change
      * @param isDragging Whether a drag operation is in progress
@@ -65,6 +66,7 @@ public class LayoutChangeEvent extends ComponentEvent<DashboardGrid> {
             long clientRevision) {
         super(source, fromClient);
         this.layout = Objects.requireNonNull(layout, "Layout must not be null");
+        this.snapshot = layout.getSnapshot();
         this.affectedItemId = affectedItemId;
         this.reason = reason != null ? reason : ChangeReason.UNKNOWN;
         this.isDragging = isDragging;
@@ -73,12 +75,21 @@ public class LayoutChangeEvent extends ComponentEvent<DashboardGrid> {
     }
     
     /**
-     * Get the updated layout
+     * Get the updated layout.
+     * This is the grid's live layout and may change after the event was fired;
+     * use {@link #getSnapshot()} for a stable view.
      */
     public GridLayout getLayout() {
         return layout;
     }
     
+    /**
+     * Get an immutable view of the layout as it was when the event was created
+     */
+    public LayoutSnapshot getSnapshot() {
+        return snapshot;
+    }
+    
     /**
      * Get the ID of the item that changed (may be null for bulk updates)
      */
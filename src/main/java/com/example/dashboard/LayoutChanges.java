@@ -0,0 +1,78 @@
+package com.example.dashboard;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Items added, updated or removed in a {@link GridLayout} between two revisions.
+ * Used to send layout patches to the client instead of the full item list.
+ */
+public final class LayoutChanges implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final long baseRevision;
+    private final long revision;
+    private final List<GridItemConfig> updated;
+    private final List<String> removed;
+    
+    LayoutChanges(long baseRevision, long revision, List<GridItemConfig> updated, List<String> removed) {
+        this.baseRevision = baseRevision;
+        this.revision = revision;
+        this.updated = Collections.unmodifiableList(updated);
+        this.removed = Collections.unmodifiableList(removed);
+    }
+    
+    /**
+     * Get the revision these changes apply on top of
+     */
+    public long getBaseRevision() {
+        return baseRevision;
+    }
+    
+    /**
+     * Get the revision reached after applying these changes
+     */
+    public long getRevision() {
+        return revision;
+    }
+    
+    /**
+     * Get the added or updated items (current state)
+     */
+    public List<GridItemConfig> getUpdated() {
+        return updated;
+    }
+    
+    /**
+     * Get the IDs of removed items
+     */
+    public List<String> getRemoved() {
+        return removed;
+    }
+    
+    /**
+     * Get the number of changed entries
+     */
+    public int size() {
+        return updated.size() + removed.size();
+    }
+    
+    /**
+     * Check if nothing changed
+     */
+    public boolean isEmpty() {
+        return updated.isEmpty() && removed.isEmpty();
+    }
+    
+    @Override
+    public String toString() {
+        return "LayoutChanges{" +
+                "baseRevision=" + baseRevision +
+                ", revision=" + revision +
+                ", updated=" + updated.size() +
+                ", removed=" + removed.size() +
+                '}';
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.dashboard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Server-side equivalent of react-grid-layout's compaction.
+ *
+ * Items are processed once in row/column order against a skyline (the lowest
+ * free row per column for vertical compaction, the left-most free column per
+ * row for horizontal compaction), so a pass costs O(n log n) for the sort plus
+ * O(w) per item instead of the pairwise collision checks done on the client.
+ * Static items never move; movable items that would land on a static item are
+ * pushed past it, as react-grid-layout does.
+ */
+final class LayoutCompactor {
+
+    private static final Comparator<GridItemConfig> ROW_ORDER =
+            Comparator.comparingInt(GridItemConfig::getY).thenComparingInt(GridItemConfig::getX);
+
+    private static final Comparator<GridItemConfig> COLUMN_ORDER =
+            Comparator.comparingInt(GridItemConfig::getX).thenComparingInt(GridItemConfig::getY);
+
+    private LayoutCompactor() {
+        // Utility class
+    }
+
+    /**
+     * Compact items in place according to the compaction type.
+     * Any type other than "horizontal" compacts vertically, matching the client.
+     *
+     * @return The items whose position changed
+     */
+    static List<GridItemConfig> compact(Collection<GridItemConfig> items, int columns, String compactType) {
+        if ("horizontal".equals(compactType)) {
+            return compactHorizontal(items, columns);
+        }
+        return compactVertical(items, columns);
+    }
+
+    /**
+     * Move every non-static item up as far as possible
+     */
+    static List<GridItemConfig> compactVertical(Collection<GridItemConfig> items, int columns) {
+        List<GridItemConfig> moved = new ArrayList<>();
+        if (items.isEmpty() || columns <= 0) {
+            return moved;
+        }
+
+        GridItemConfig[] sorted = items.toArray(new GridItemConfig[0]);
+        Arrays.sort(sorted, ROW_ORDER);
+        List<GridItemConfig> statics = staticItems(sorted);
+
+        int[] skyline = new int[columns];
+        for (GridItemConfig item : sorted) {
+            int from = clamp(item.getX(), columns);
+            int to = clamp(item.getX() + item.getW(), columns);
+
+            if (item.isStatic()) {
+                raise(skyline, from, to, item.getY() + item.getH());
+                continue;
+            }
+
+            int y = 0;
+            for (int col = from; col < to; col++) {
+                y = Math.max(y, skyline[col]);
+            }
+            y = belowStatics(item, item.getX(), y, statics);
+
+            raise(skyline, from, to, y + item.getH());
+            if (y != item.getY()) {
+                item.setY(y);
+                moved.add(item);
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Move every non-static item left as far as possible, wrapping to the next
+     * row when it no longer fits the column count
+     */
+    static List<GridItemConfig> compactHorizontal(Collection<GridItemConfig> items, int columns) {
+        List<GridItemConfig> moved = new ArrayList<>();
+        if (items.isEmpty() || columns <= 0) {
+            return moved;
+        }
+
+        GridItemConfig[] sorted = items.toArray(new GridItemConfig[0]);
+        Arrays.sort(sorted, COLUMN_ORDER);
+        List<GridItemConfig> statics = staticItems(sorted);
+
+        int[] skyline = new int[16];
+        for (GridItemConfig item : sorted) {
+            if (item.isStatic()) {
+                skyline = raiseRows(skyline, item.getY(), item.getH(), item.getX() + item.getW());
+                continue;
+            }
+
+            int y = Math.max(item.getY(), 0);
+            int x = leftmost(skyline, y, item.getH());
+            x = rightOfStatics(item, x, y, statics);
+            while (x + item.getW() > columns && x > 0) {
+                y++;
+                x = rightOfStatics(item, leftmost(skyline, y, item.getH()), y, statics);
+            }
+
+            skyline = raiseRows(skyline, y, item.getH(), x + item.getW());
+            if (x != item.getX() || y != item.getY()) {
+                item.setX(x);
+                item.setY(y);
+                moved.add(item);
+            }
+        }
+        return moved;
+    }
+
+    private static List<GridItemConfig> staticItems(GridItemConfig[] sorted) {
+        List<GridItemConfig> statics = new ArrayList<>();
+        for (GridItemConfig item : sorted) {
+            if (item.isStatic()) {
+                statics.add(item);
+            }
+        }
+        return statics;
+    }
+
+    /**
+     * Push a candidate row down until the item no longer overlaps a static item
+     */
+    private static int belowStatics(GridItemConfig item, int x, int y, List<GridItemConfig> statics) {
+        boolean collided = true;
+        while (collided) {
+            collided = false;
+            for (GridItemConfig fixed : statics) {
+                if (overlaps(fixed, x, y, item.getW(), item.getH())) {
+                    y = fixed.getY() + fixed.getH();
+                    collided = true;
+                }
+            }
+        }
+        return y;
+    }
+
+    /**
+     * Push a candidate column right until the item no longer overlaps a static item
+     */
+    private static int rightOfStatics(GridItemConfig item, int x, int y, List<GridItemConfig> statics) {
+        boolean collided = true;
+        while (collided) {
+            collided = false;
+            for (GridItemConfig fixed : statics) {
+                if (overlaps(fixed, x, y, item.getW(), item.getH())) {
+                    x = fixed.getX() + fixed.getW();
+                    collided = true;
+                }
+            }
+        }
+        return x;
+    }
+
+    private static boolean overlaps(GridItemConfig fixed, int x, int y, int w, int h) {
+        return x < fixed.getX() + fixed.getW() && fixed.getX() < x + w
+                && y < fixed.getY() + fixed.getH() && fixed.getY() < y + h;
+    }
+
+    private static void raise(int[] skyline, int from, int to, int bottom) {
+        for (int col = from; col < to; col++) {
+            skyline[col] = Math.max(skyline[col], bottom);
+        }
+    }
+
+    private static int leftmost(int[] skyline, int y, int h) {
+        int x = 0;
+        int end = Math.min(y + h, skyline.length);
+        for (int row = Math.max(y, 0); row < end; row++) {
+            x = Math.max(x, skyline[row]);
+        }
+        return x;
+    }
+
+    private static int[] raiseRows(int[] skyline, int y, int h, int right) {
+        int from = Math.max(y, 0);
+        int to = y + h;
+        if (to > skyline.length) {
+            skyline = Arrays.copyOf(skyline, Math.max(skyline.length * 2, to));
+        }
+        for (int row = from; row < to; row++) {
+            skyline[row] = Math.max(skyline[row], right);
+        }
+        return skyline;
+    }
+
+    private static int clamp(int column, int columns) {
+        return Math.min(Math.max(column, 0), columns);
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.dashboard;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Undo and redo steps of a {@link GridLayout}. Each step holds only the
+ * items that changed between two checkpoints, before and after, found by
+ * comparing the checkpoints' snapshots. The total number of recorded item
+ * changes is capped; the oldest steps are dropped to stay under the cap.
+ */
+final class LayoutHistory implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Item changes between two checkpoints. A null item means absent.
+     */
+    static final class Step implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        final long fromRevision;
+        final long toRevision;
+        final LayoutItem[] before;
+        final LayoutItem[] after;
+
+        Step(long fromRevision, long toRevision, LayoutItem[] before, LayoutItem[] after) {
+            this.fromRevision = fromRevision;
+            this.toRevision = toRevision;
+            this.before = before;
+            this.after = after;
+        }
+
+        int size() {
+            return before.length;
+        }
+    }
+
+    private final int maxChanges;
+
+    /**
+     * Undo steps, oldest first; the ring drops from the front
+     */
+    private final ArrayDeque<Step> undo = new ArrayDeque<>();
+
+    /**
+     * Redo steps, next redo first
+     */
+    private final ArrayDeque<Step> redo = new ArrayDeque<>();
+
+    private int changes;
+
+    /**
+     * Layout state at the last checkpoint
+     */
+    private LayoutSnapshot base;
+
+    /**
+     * Revision under which the base state was first checkpointed. After an
+     * undo or redo the layout is at a new revision, but the state is still
+     * known by the revision it originally had.
+     */
+    private long baseRevision;
+
+    LayoutHistory(int maxChanges, LayoutSnapshot base) {
+        this.maxChanges = maxChanges;
+        this.base = base;
+        this.baseRevision = base.getRevision();
+    }
+
+    int maxChanges() {
+        return maxChanges;
+    }
+
+    /**
+     * Record the changes from the last checkpoint to the given state as one undo step
+     *
+     * @return true if anything changed
+     */
+    boolean record(LayoutSnapshot current) {
+        if (current == base) {
+            return false;
+        }
+        List<LayoutItem> before = new ArrayList<>();
+        List<LayoutItem> after = new ArrayList<>();
+        PersistentItemMap.diff(base.itemMap(), current.itemMap(), (from, to) -> {
+            before.add(from);
+            after.add(to);
+        });
+        long fromRevision = baseRevision;
+        base = current;
+        baseRevision = current.getRevision();
+        if (before.isEmpty()) {
+            return false;
+        }
+
+        for (Step step : redo) {
+            changes -= step.size();
+        }
+        redo.clear();
+
+        undo.addLast(new Step(fromRevision, current.getRevision(),
+                before.toArray(new LayoutItem[0]), after.toArray(new LayoutItem[0])));
+        changes += before.size();
+        while (changes > maxChanges && !undo.isEmpty()) {
+            changes -= undo.removeFirst().size();
+        }
+        return true;
+    }
+
+    /**
+     * Take the next step to undo, moving it to the redo side
+     *
+     * @return The step, or null if there is nothing to undo
+     */
+    Step undo() {
+        Step step = undo.pollLast();
+        if (step != null) {
+            redo.addFirst(step);
+        }
+        return step;
+    }
+
+    /**
+     * Take the next step to redo, moving it to the undo side
+     *
+     * @return The step, or null if there is nothing to redo
+     */
+    Step redo() {
+        Step step = redo.pollFirst();
+        if (step != null) {
+            undo.addLast(step);
+        }
+        return step;
+    }
+
+    /**
+     * Set the state a step was just applied to, without recording a step
+     *
+     * @param current The layout after applying the step
+     * @param revision The revision the state was originally checkpointed at
+     */
+    void moveTo(LayoutSnapshot current, long revision) {
+        base = current;
+        baseRevision = revision;
+    }
+
+    /**
+     * Check if any item differs between the last checkpoint and the given state
+     */
+    boolean hasChanges(LayoutSnapshot current) {
+        if (current == base) {
+            return false;
+        }
+        boolean[] changed = new boolean[1];
+        PersistentItemMap.diff(base.itemMap(), current.itemMap(), (from, to) -> changed[0] = true);
+        return changed[0];
+    }
+
+    boolean canUndo() {
+        return !undo.isEmpty();
+    }
+
+    boolean canRedo() {
+        return !redo.isEmpty();
+    }
+
+    /**
+     * Number of undo steps leading back to the checkpoint taken at the given
+     * revision (0 if that is the current one), or -1 if it is not in the history
+     */
+    int undoDistance(long revision) {
+        if (baseRevision == revision || base.getRevision() == revision) {
+            return 0;
+        }
+        int distance = 0;
+        Iterator<Step> steps = undo.descendingIterator();
+        while (steps.hasNext()) {
+            Step step = steps.next();
+            distance++;
+            if (step.fromRevision == revision) {
+                return distance;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Number of redo steps leading forward to the checkpoint taken at the
+     * given revision, or -1 if it is not in the history
+     */
+    int redoDistance(long revision) {
+        int distance = 0;
+        for (Step step : redo) {
+            distance++;
+            if (step.toRevision == revision) {
+                return distance;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Drop all steps and start over from the given state
+     */
+    void clear(LayoutSnapshot current) {
+        undo.clear();
+        redo.clear();
+        changes = 0;
+        base = current;
+        baseRevision = current.getRevision();
+    }
+}
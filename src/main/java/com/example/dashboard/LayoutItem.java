@@ -0,0 +1,156 @@
+package com.example.dashboard;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Immutable point-in-time view of a grid item, as held by a {@link LayoutSnapshot}.
+ * Use {@link #toConfig()} to get a mutable {@link GridItemConfig} for edits.
+ */
+public final class LayoutItem implements Serializable, ItemValues {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String id;
+    private final int x;
+    private final int y;
+    private final int w;
+    private final int h;
+    private final Integer minW;
+    private final Integer minH;
+    private final Integer maxW;
+    private final Integer maxH;
+    private final boolean isStatic;
+    private final boolean isDraggable;
+    private final boolean isResizable;
+
+    /**
+     * Insertion position in the owning layout, used to keep the layout's item order
+     */
+    final long order;
+
+    private LayoutItem(GridItemConfig config, long order) {
+        this.id = config.getId();
+        this.x = config.getX();
+        this.y = config.getY();
+        this.w = config.getW();
+        this.h = config.getH();
+        this.minW = config.getMinW();
+        this.minH = config.getMinH();
+        this.maxW = config.getMaxW();
+        this.maxH = config.getMaxH();
+        this.isStatic = config.isStatic();
+        this.isDraggable = config.isDraggable();
+        this.isResizable = config.isResizable();
+        this.order = order;
+    }
+
+    /**
+     * Capture the current state of a config
+     */
+    static LayoutItem of(GridItemConfig config, long order) {
+        return new LayoutItem(config, order);
+    }
+
+    /**
+     * Create a mutable config with the same values
+     */
+    public GridItemConfig toConfig() {
+        GridItemConfig config = new GridItemConfig(id, x, y, w, h);
+        config.setMinW(minW);
+        config.setMinH(minH);
+        config.setMaxW(maxW);
+        config.setMaxH(maxH);
+        config.setStatic(isStatic);
+        config.setDraggable(isDraggable);
+        config.setResizable(isResizable);
+        return config;
+    }
+
+    /**
+     * Check whether this item has the same values as a config
+     */
+    boolean matches(GridItemConfig config) {
+        return x == config.getX() && y == config.getY() && w == config.getW() && h == config.getH()
+                && isStatic == config.isStatic() && isDraggable == config.isDraggable()
+                && isResizable == config.isResizable() && Objects.equals(id, config.getId())
+                && Objects.equals(minW, config.getMinW()) && Objects.equals(minH, config.getMinH())
+                && Objects.equals(maxW, config.getMaxW()) && Objects.equals(maxH, config.getMaxH());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getW() {
+        return w;
+    }
+
+    public int getH() {
+        return h;
+    }
+
+    public Integer getMinW() {
+        return minW;
+    }
+
+    public Integer getMinH() {
+        return minH;
+    }
+
+    public Integer getMaxW() {
+        return maxW;
+    }
+
+    public Integer getMaxH() {
+        return maxH;
+    }
+
+    public boolean isStatic() {
+        return isStatic;
+    }
+
+    public boolean isDraggable() {
+        return isDraggable;
+    }
+
+    public boolean isResizable() {
+        return isResizable;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LayoutItem that = (LayoutItem) o;
+        return x == that.x && y == that.y && w == that.w && h == that.h
+                && isStatic == that.isStatic && isDraggable == that.isDraggable
+                && isResizable == that.isResizable && Objects.equals(id, that.id)
+                && Objects.equals(minW, that.minW) && Objects.equals(minH, that.minH)
+                && Objects.equals(maxW, that.maxW) && Objects.equals(maxH, that.maxH);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, x, y, w, h, minW, minH, maxW, maxH, isStatic, isDraggable, isResizable);
+    }
+
+    @Override
+    public String toString() {
+        return "LayoutItem{" +
+                "id='" + id + '\'' +
+                ", x=" + x +
+                ", y=" + y +
+                ", w=" + w +
+                ", h=" + h +
+                '}';
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.dashboard;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Identifies a stored layout: one dashboard of one user.
+ * Shared dashboards can use a fixed user such as {@code "shared"}.
+ */
+public final class LayoutKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String user;
+    private final String dashboard;
+
+    private LayoutKey(String user, String dashboard) {
+        this.user = Objects.requireNonNull(user, "User must not be null");
+        this.dashboard = Objects.requireNonNull(dashboard, "Dashboard must not be null");
+    }
+
+    /**
+     * Create a key
+     *
+     * @param user The owning user
+     * @param dashboard The dashboard of that user
+     */
+    public static LayoutKey of(String user, String dashboard) {
+        return new LayoutKey(user, dashboard);
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getDashboard() {
+        return dashboard;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LayoutKey that = (LayoutKey) o;
+        return user.equals(that.user) && dashboard.equals(that.dashboard);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * user.hashCode() + dashboard.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return user + "/" + dashboard;
+    }
+}
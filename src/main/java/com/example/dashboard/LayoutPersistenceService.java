@@ -0,0 +1,414 @@
+package com.example.dashboard;
+
+import com.vaadin.flow.shared.Registration;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes dashboard layouts to a {@link LayoutStore} in the background.
+ *
+ * Saves are debounced per dashboard key: a save is written once no newer
+ * save for the same key has arrived for the debounce period, and all
+ * revisions that arrived in the meantime are coalesced into that single
+ * write. Only the immutable {@link LayoutSnapshot} is handed over, so the
+ * caller (typically a listener running under the Vaadin session lock) does
+ * no serialization or I/O. Snapshots published by the same
+ * {@link GridLayout} are ordered by {@link LayoutSnapshot#getRevision()}: one
+ * that is not newer than a snapshot of that layout already pending, being
+ * written or written for the same key is ignored. Revisions of different
+ * layouts (e.g. the grids of two sessions showing the same dashboard) are
+ * not comparable, so their snapshots are written in the order they arrive.
+ * Writes for the same key never overlap.
+ *
+ * Usage example:
+ * <pre>
+ * LayoutPersistenceService persistence = new LayoutPersistenceService(store);
+ * persistence.bind(grid, LayoutKey.of("user-42", "main"));
+ * </pre>
+ */
+public final class LayoutPersistenceService implements AutoCloseable {
+
+    /**
+     * Debounce period used when none is given
+     */
+    public static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(500);
+
+    private static final Logger LOGGER = Logger.getLogger(LayoutPersistenceService.class.getName());
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final LayoutStore store;
+    private final long debounceNanos;
+    private final ScheduledExecutorService executor;
+    private final boolean ownsExecutor;
+    private final Map<LayoutKey, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Last revision written per key, for each snapshot source. Weak so that a
+     * source is forgotten together with its layout.
+     */
+    private final Map<Object, Map<LayoutKey, Long>> writtenRevisions = new WeakHashMap<>();
+
+    private volatile BiConsumer<LayoutKey, Exception> errorHandler = (key, e) ->
+            LOGGER.log(Level.WARNING, "Failed to save layout " + key, e);
+    private volatile boolean closed;
+
+    /**
+     * Per-key write state, guarded by its own monitor. Removed from the map
+     * once nothing is pending or being written.
+     */
+    private static final class Entry {
+        LayoutSnapshot pending;
+        CompletableFuture<Boolean> pendingResult;
+        ScheduledFuture<?> timer;
+        LayoutSnapshot writing;
+        boolean removed;
+    }
+
+    /**
+     * Create a service with the default debounce period and its own
+     * daemon worker threads, shut down by {@link #close()}
+     */
+    public LayoutPersistenceService(LayoutStore store) {
+        this(store, DEFAULT_DEBOUNCE, Executors.newScheduledThreadPool(2, daemonThreads()), true);
+    }
+
+    /**
+     * Create a service writing on the given executor. The executor is not
+     * shut down by {@link #close()}.
+     *
+     * @param store Where layouts are written
+     * @param debounce How long a key must be quiet before it is written
+     * @param executor Executor for the debounce timers and the writes
+     */
+    public LayoutPersistenceService(LayoutStore store, Duration debounce, ScheduledExecutorService executor) {
+        this(store, debounce, executor, false);
+    }
+
+    private LayoutPersistenceService(LayoutStore store, Duration debounce, ScheduledExecutorService executor,
+                                     boolean ownsExecutor) {
+        this.store = Objects.requireNonNull(store, "Store must not be null");
+        this.executor = Objects.requireNonNull(executor, "Executor must not be null");
+        Objects.requireNonNull(debounce, "Debounce must not be null");
+        if (debounce.isNegative()) {
+            throw new IllegalArgumentException("Debounce must not be negative: " + debounce);
+        }
+        this.debounceNanos = debounce.toNanos();
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    private static ThreadFactory daemonThreads() {
+        return runnable -> {
+            Thread thread = new Thread(runnable, "layout-persistence-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Set the handler called with the key and the exception when a write
+     * fails. By default failures are logged. The handler runs on a worker
+     * thread.
+     */
+    public void setErrorHandler(BiConsumer<LayoutKey, Exception> errorHandler) {
+        this.errorHandler = Objects.requireNonNull(errorHandler, "Error handler must not be null");
+    }
+
+    /**
+     * Schedule a layout to be written. Returns immediately.
+     *
+     * @param key The layout key
+     * @param snapshot The layout to write; ignored if a snapshot of the same
+     *                 layout with the same or a newer revision is already
+     *                 pending, being written or written
+     * @return Completes with true once the snapshot, or a later one that
+     *         replaced it while pending, has been written; with false if the
+     *         snapshot was ignored or its save was dropped by
+     *         {@link #delete(LayoutKey)}; exceptionally if the write failed
+     * @throws IllegalStateException If the service has been closed
+     */
+    public CompletableFuture<Boolean> save(LayoutKey key, LayoutSnapshot snapshot) {
+        Objects.requireNonNull(key, "Key must not be null");
+        Objects.requireNonNull(snapshot, "Snapshot must not be null");
+        if (closed) {
+            throw new IllegalStateException("Persistence service is closed");
+        }
+
+        while (true) {
+            Entry entry = entries.computeIfAbsent(key, k -> new Entry());
+            synchronized (entry) {
+                if (entry.removed) {
+                    // Evicted after its last write, retry with a fresh entry
+                    continue;
+                }
+                if (isSuperseded(key, entry, snapshot)) {
+                    evictIfIdle(key, entry);
+                    return CompletableFuture.completedFuture(false);
+                }
+                if (entry.pending == null) {
+                    entry.pendingResult = new CompletableFuture<>();
+                }
+                entry.pending = snapshot;
+                if (entry.writing == null) {
+                    // A running write reschedules itself when it sees a newer snapshot
+                    schedule(key, entry);
+                }
+                // A copy, so callers cannot complete the result shared by coalesced saves
+                return entry.pendingResult.copy();
+            }
+        }
+    }
+
+    /**
+     * Check whether a snapshot of the same source with the same or a newer
+     * revision is pending, being written or written
+     */
+    private boolean isSuperseded(LayoutKey key, Entry entry, LayoutSnapshot snapshot) {
+        Object source = snapshot.source();
+        if (source == null) {
+            return false;
+        }
+        long revision = snapshot.getRevision();
+        if (isNotOlder(entry.pending, source, revision) || isNotOlder(entry.writing, source, revision)) {
+            return true;
+        }
+        synchronized (writtenRevisions) {
+            Map<LayoutKey, Long> written = writtenRevisions.get(source);
+            return written != null && revision <= written.getOrDefault(key, Long.MIN_VALUE);
+        }
+    }
+
+    private static boolean isNotOlder(LayoutSnapshot other, Object source, long revision) {
+        return other != null && other.source() == source && other.getRevision() >= revision;
+    }
+
+    private void recordWritten(LayoutKey key, LayoutSnapshot snapshot) {
+        Object source = snapshot.source();
+        if (source == null) {
+            return;
+        }
+        synchronized (writtenRevisions) {
+            writtenRevisions.computeIfAbsent(source, s -> new HashMap<>())
+                    .merge(key, snapshot.getRevision(), Math::max);
+        }
+    }
+
+    /**
+     * Drop the entry of a key once nothing is pending or being written for it
+     */
+    private void evictIfIdle(LayoutKey key, Entry entry) {
+        if (entry.pending == null && entry.writing == null) {
+            entry.removed = true;
+            entries.remove(key, entry);
+        }
+    }
+
+    /**
+     * Number of keys with a save pending or being written
+     */
+    int activeKeys() {
+        return entries.size();
+    }
+
+    /**
+     * Save the layout of a grid whenever the user finishes a drag or resize.
+     * Programmatic changes do not fire layout change events; save those with
+     * {@code save(key, grid.getSnapshot())}.
+     *
+     * @param grid The grid to persist
+     * @param key The layout key
+     * @return A registration for stopping the automatic saves
+     */
+    public Registration bind(DashboardGrid grid, LayoutKey key) {
+        Objects.requireNonNull(grid, "Grid must not be null");
+        Objects.requireNonNull(key, "Key must not be null");
+        return grid.addLayoutChangeListener(event -> save(key, event.getSnapshot()),
+                DashboardGrid.EventMode.FINAL_ONLY);
+    }
+
+    /**
+     * Load a layout from the underlying store. Called on the current thread.
+     *
+     * @return The stored layout, or null if nothing is stored under the key
+     */
+    public GridLayout load(LayoutKey key) throws IOException {
+        return store.load(key);
+    }
+
+    /**
+     * List the keys of all layouts stored for a user. Called on the current thread.
+     */
+    public List<LayoutKey> list(String user) throws IOException {
+        return store.list(user);
+    }
+
+    /**
+     * Drop any pending save for the key, wait for a write in progress and
+     * remove the stored layout. Called on the current thread.
+     *
+     * @return true if a layout was stored under the key
+     */
+    public boolean delete(LayoutKey key) throws IOException {
+        Objects.requireNonNull(key, "Key must not be null");
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            forgetWritten(key);
+            return store.delete(key);
+        }
+        boolean interrupted = false;
+        CompletableFuture<Boolean> dropped = null;
+        try {
+            synchronized (entry) {
+                cancelTimer(entry);
+                dropped = entry.pendingResult;
+                entry.pending = null;
+                entry.pendingResult = null;
+                while (entry.writing != null) {
+                    try {
+                        entry.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                forgetWritten(key);
+                try {
+                    return store.delete(key);
+                } finally {
+                    evictIfIdle(key, entry);
+                }
+            }
+        } finally {
+            if (dropped != null) {
+                dropped.complete(false);
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Accept saves of any revision again, the grids may start over
+     */
+    private void forgetWritten(LayoutKey key) {
+        synchronized (writtenRevisions) {
+            writtenRevisions.values().forEach(written -> written.remove(key));
+        }
+    }
+
+    /**
+     * Write all pending layouts now, without waiting for their debounce
+     * period, and wait for writes in progress to complete
+     */
+    public void flush() {
+        boolean interrupted = false;
+        for (Map.Entry<LayoutKey, Entry> e : entries.entrySet()) {
+            LayoutKey key = e.getKey();
+            Entry entry = e.getValue();
+            while (true) {
+                synchronized (entry) {
+                    cancelTimer(entry);
+                    while (entry.writing != null) {
+                        try {
+                            entry.wait();
+                        } catch (InterruptedException ex) {
+                            interrupted = true;
+                        }
+                    }
+                    if (entry.pending == null) {
+                        break;
+                    }
+                }
+                write(key, entry);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stop accepting saves, write everything still pending and release the
+     * worker threads if the service created them
+     */
+    @Override
+    public void close() {
+        closed = true;
+        flush();
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    private void schedule(LayoutKey key, Entry entry) {
+        cancelTimer(entry);
+        entry.timer = executor.schedule(() -> write(key, entry), debounceNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static void cancelTimer(Entry entry) {
+        if (entry.timer != null) {
+            entry.timer.cancel(false);
+            entry.timer = null;
+        }
+    }
+
+    private void write(LayoutKey key, Entry entry) {
+        LayoutSnapshot snapshot;
+        CompletableFuture<Boolean> result;
+        synchronized (entry) {
+            if (entry.writing != null || entry.pending == null) {
+                return;
+            }
+            snapshot = entry.pending;
+            result = entry.pendingResult;
+            entry.pending = null;
+            entry.pendingResult = null;
+            entry.timer = null;
+            entry.writing = snapshot;
+        }
+
+        boolean written = false;
+        Exception failure = null;
+        try {
+            store.save(key, snapshot);
+            // Recorded while still marked as writing, so no older save slips in between
+            recordWritten(key, snapshot);
+            written = true;
+        } catch (Exception e) {
+            failure = e;
+            errorHandler.accept(key, e);
+        } finally {
+            synchronized (entry) {
+                entry.writing = null;
+                if (entry.pending != null && !closed) {
+                    schedule(key, entry);
+                }
+                evictIfIdle(key, entry);
+                entry.notifyAll();
+            }
+            if (written) {
+                result.complete(true);
+            } else {
+                result.completeExceptionally(failure != null ? failure
+                        : new IllegalStateException("Layout " + key + " was not written"));
+            }
+        }
+    }
+}
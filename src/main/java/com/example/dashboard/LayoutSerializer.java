@@ -1,14 +1,26 @@
 package com.example.dashboard;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -38,97 +50,246 @@ import java.util.List;
  *     }
  *   ]
  * }
+ * 
+ * Reading and writing go through Jackson's streaming JsonParser/JsonGenerator,
+ * so no intermediate JsonNode tree is built. The stream overloads never close
+ * the stream they are given.
+ * 
+ * Items and patches exchanged with the client component use the same format,
+ * but as Elemental JSON values: they are sent as structured element
+ * properties and event data, so the JSON is encoded and parsed only once,
+ * by the framework, rather than again as a string inside a string.
  */
 public class LayoutSerializer {
     
-    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+            .build();
+    
+    /**
+     * Rough serialized size of one item, used to presize string output
+     */
+    private static final int ITEM_SIZE_HINT = 128;
+    
+    /**
+     * Body of a JSON document written to a generator
+     */
+    @FunctionalInterface
+    private interface JsonBody {
+        void write(JsonGenerator generator) throws IOException;
+    }
     
     /**
      * Serialize a GridLayout to JSON string
      */
     public static String toJson(GridLayout layout) {
         try {
-            ObjectNode root = MAPPER.createObjectNode();
-            
-            // Layout properties
-            root.put("revision", layout.getRevision());
-            root.put("columns", layout.getColumns());
-            root.put("rowHeight", layout.getRowHeight());
-            root.put("compact", layout.isCompact());
-            
-            if (layout.getCompactType() != null) {
-                root.put("compactType", layout.getCompactType());
-            }
-            
-            // Items array
-            ArrayNode itemsArray = root.putArray("items");
-            for (GridItemConfig item : layout.getItems()) {
-                ObjectNode itemNode = itemsArray.addObject();
-                
-                // Required fields (using 'i' to match react-grid-layout)
-                itemNode.put("i", item.getId());
-                itemNode.put("x", item.getX());
-                itemNode.put("y", item.getY());
-                itemNode.put("w", item.getW());
-                itemNode.put("h", item.getH());
-                
-                // Optional fields
-                if (item.getMinW() != null) {
-                    itemNode.put("minW", item.getMinW());
-                }
-                if (item.getMinH() != null) {
-                    itemNode.put("minH", item.getMinH());
-                }
-                if (item.getMaxW() != null) {
-                    itemNode.put("maxW", item.getMaxW());
-                }
-                if (item.getMaxH() != null) {
-                    itemNode.put("maxH", item.getMaxH());
-                }
-                
-                // Boolean flags
-                itemNode.put("static", item.isStatic());
-                itemNode.put("isDraggable", item.isDraggable());
-                itemNode.put("isResizable", item.isResizable());
-            }
-            
-            return MAPPER.writeValueAsString(root);
-        } catch (JsonProcessingException e) {
+            return writeToString(gen -> writeLayout(gen, layout), layout.size(), false);
+        } catch (IOException e) {
             throw new RuntimeException("Failed to serialize layout", e);
         }
     }
     
+    /**
+     * Serialize a layout snapshot to JSON string (same format as a GridLayout)
+     */
+    public static String toJson(LayoutSnapshot snapshot) {
+        try {
+            return writeToString(gen -> writeSnapshot(gen, snapshot), snapshot.size(), false);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to serialize layout", e);
+        }
+    }
+    
+    /**
+     * Serialize a layout snapshot as UTF-8 JSON straight to a stream.
+     * The stream is flushed but not closed.
+     */
+    public static void writeJson(LayoutSnapshot snapshot, OutputStream out) {
+        try (JsonGenerator gen = FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            writeSnapshot(gen, snapshot);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize layout", e);
+        }
+    }
+    
+    /**
+     * Serialize a GridLayout as UTF-8 JSON straight to a stream.
+     * The stream is flushed but not closed.
+     */
+    public static void writeJson(GridLayout layout, OutputStream out) {
+        try (JsonGenerator gen = FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            writeLayout(gen, layout);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize layout", e);
+        }
+    }
+    
+    /**
+     * Serialize a GridLayout as JSON straight to a writer.
+     * The writer is flushed but not closed.
+     */
+    public static void writeJson(GridLayout layout, Writer writer) {
+        try (JsonGenerator gen = FACTORY.createGenerator(writer)) {
+            writeLayout(gen, layout);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize layout", e);
+        }
+    }
+    
     /**
      * Serialize just the items array (for client-side updates)
      */
     public static String itemsToJson(GridLayout layout) {
         try {
-            ArrayNode itemsArray = MAPPER.createArrayNode();
-            
-            for (GridItemConfig item : layout.getItems()) {
-                ObjectNode itemNode = itemsArray.addObject();
-                itemNode.put("i", item.getId());
-                itemNode.put("x", item.getX());
-                itemNode.put("y", item.getY());
-                itemNode.put("w", item.getW());
-                itemNode.put("h", item.getH());
-                
-                if (item.getMinW() != null) itemNode.put("minW", item.getMinW());
-                if (item.getMinH() != null) itemNode.put("minH", item.getMinH());
-                if (item.getMaxW() != null) itemNode.put("maxW", item.getMaxW());
-                if (item.getMaxH() != null) itemNode.put("maxH", item.getMaxH());
-                
-                itemNode.put("static", item.isStatic());
-                itemNode.put("isDraggable", item.isDraggable());
-                itemNode.put("isResizable", item.isResizable());
-            }
-            
-            return MAPPER.writeValueAsString(itemsArray);
-        } catch (JsonProcessingException e) {
+            return writeToString(gen -> writeItems(gen, layout.itemsView()), layout.size(), false);
+        } catch (IOException e) {
             throw new RuntimeException("Failed to serialize items", e);
         }
     }
     
+    /**
+     * Convert the items to a JSON array for the client component's layoutData property
+     */
+    public static JsonArray itemsToJsonArray(GridLayout layout) {
+        return itemsToJsonArray(layout.itemsView());
+    }
+    
+    /**
+     * Convert a layout patch for the client component's layoutPatch property:
+     * {"base": 10, "revision": 12, "items": [...], "removed": ["id", ...]}
+     */
+    public static JsonObject changesToJsonObject(LayoutChanges changes) {
+        JsonObject patch = Json.createObject();
+        patch.put("base", changes.getBaseRevision());
+        patch.put("revision", changes.getRevision());
+        patch.put("items", itemsToJsonArray(changes.getUpdated()));
+        
+        JsonArray removed = Json.createArray();
+        for (String id : changes.getRemoved()) {
+            removed.set(removed.length(), id);
+        }
+        patch.put("removed", removed);
+        return patch;
+    }
+    
+    private static JsonArray itemsToJsonArray(Collection<GridItemConfig> items) {
+        JsonArray array = Json.createArray();
+        int index = 0;
+        for (GridItemConfig item : items) {
+            array.set(index++, itemToJsonObject(item));
+        }
+        return array;
+    }
+    
+    /**
+     * Convert a single item to react-grid-layout form (see {@link #writeItem})
+     */
+    private static JsonObject itemToJsonObject(ItemValues item) {
+        JsonObject json = Json.createObject();
+        json.put("i", item.getId());
+        json.put("x", item.getX());
+        json.put("y", item.getY());
+        json.put("w", item.getW());
+        json.put("h", item.getH());
+        
+        if (item.getMinW() != null) json.put("minW", item.getMinW());
+        if (item.getMinH() != null) json.put("minH", item.getMinH());
+        if (item.getMaxW() != null) json.put("maxW", item.getMaxW());
+        if (item.getMaxH() != null) json.put("maxH", item.getMaxH());
+        
+        json.put("static", item.isStatic());
+        json.put("isDraggable", item.isDraggable());
+        json.put("isResizable", item.isResizable());
+        return json;
+    }
+    
+    private static String writeToString(JsonBody body, int itemCount, boolean pretty) throws IOException {
+        StringWriter writer = new StringWriter(64 + itemCount * ITEM_SIZE_HINT);
+        try (JsonGenerator gen = FACTORY.createGenerator(writer)) {
+            if (pretty) {
+                gen.useDefaultPrettyPrinter();
+            }
+            body.write(gen);
+        }
+        return writer.toString();
+    }
+    
+    private static void writeLayout(JsonGenerator gen, GridLayout layout) throws IOException {
+        gen.writeStartObject();
+        
+        // Layout properties
+        gen.writeNumberField("revision", layout.getRevision());
+        gen.writeNumberField("columns", layout.getColumns());
+        gen.writeNumberField("rowHeight", layout.getRowHeight());
+        gen.writeBooleanField("compact", layout.isCompact());
+        
+        if (layout.getCompactType() != null) {
+            gen.writeStringField("compactType", layout.getCompactType());
+        }
+        
+        gen.writeFieldName("items");
+        writeItems(gen, layout.itemsView());
+        
+        gen.writeEndObject();
+    }
+    
+    private static void writeSnapshot(JsonGenerator gen, LayoutSnapshot snapshot) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("revision", snapshot.getRevision());
+        gen.writeNumberField("columns", snapshot.getColumns());
+        gen.writeNumberField("rowHeight", snapshot.getRowHeight());
+        gen.writeBooleanField("compact", snapshot.isCompact());
+        
+        if (snapshot.getCompactType() != null) {
+            gen.writeStringField("compactType", snapshot.getCompactType());
+        }
+        
+        gen.writeArrayFieldStart("items");
+        for (LayoutItem item : snapshot.getItems()) {
+            writeItem(gen, item);
+        }
+        gen.writeEndArray();
+        
+        gen.writeEndObject();
+    }
+    
+    private static void writeItems(JsonGenerator gen, Collection<GridItemConfig> items) throws IOException {
+        gen.writeStartArray();
+        for (GridItemConfig item : items) {
+            writeItem(gen, item);
+        }
+        gen.writeEndArray();
+    }
+    
+    /**
+     * Write a single item in react-grid-layout form
+     */
+    private static void writeItem(JsonGenerator gen, ItemValues item) throws IOException {
+        gen.writeStartObject();
+        
+        // Required fields (using 'i' to match react-grid-layout)
+        gen.writeStringField("i", item.getId());
+        gen.writeNumberField("x", item.getX());
+        gen.writeNumberField("y", item.getY());
+        gen.writeNumberField("w", item.getW());
+        gen.writeNumberField("h", item.getH());
+        
+        // Optional fields
+        if (item.getMinW() != null) gen.writeNumberField("minW", item.getMinW());
+        if (item.getMinH() != null) gen.writeNumberField("minH", item.getMinH());
+        if (item.getMaxW() != null) gen.writeNumberField("maxW", item.getMaxW());
+        if (item.getMaxH() != null) gen.writeNumberField("maxH", item.getMaxH());
+        
+        // Boolean flags
+        gen.writeBooleanField("static", item.isStatic());
+        gen.writeBooleanField("isDraggable", item.isDraggable());
+        gen.writeBooleanField("isResizable", item.isResizable());
+        
+        gen.writeEndObject();
+    }
+    
     /**
      * Deserialize a GridLayout from JSON string
      */
@@ -137,112 +298,256 @@ public class LayoutSerializer {
             return new GridLayout();
         }
         
-        try {
-            JsonNode root = MAPPER.readTree(json);
-            GridLayout layout = new GridLayout();
-            
-            // Layout properties
-            if (root.has("columns")) {
-                layout.setColumns(root.get("columns").asInt(12));
-            }
-            if (root.has("rowHeight")) {
-                layout.setRowHeight(root.get("rowHeight").asInt(30));
-            }
-            if (root.has("compact")) {
-                layout.setCompact(root.get("compact").asBoolean(true));
-            }
-            if (root.has("compactType")) {
-                layout.setCompactType(root.get("compactType").asText());
-            }
-            if (root.has("revision")) {
-                layout.setRevision(root.get("revision").asLong(0));
-            }
-            
-            // Items
-            if (root.has("items") && root.get("items").isArray()) {
-                ArrayNode itemsArray = (ArrayNode) root.get("items");
-                List<GridItemConfig> items = parseItemsArray(itemsArray);
-                items.forEach(layout::putItem);
-            }
-            
-            return layout;
+        try (JsonParser parser = FACTORY.createParser(json)) {
+            return readLayout(parser);
         } catch (IOException e) {
             throw new RuntimeException("Failed to deserialize layout", e);
         }
     }
     
     /**
-     * Update layout items from a JSON items array (from client)
+     * Deserialize a GridLayout from a JSON stream (UTF-8, UTF-16 or UTF-32,
+     * detected automatically). An empty stream yields an empty layout.
+     * The stream is not closed.
      */
-    public static void updateItemsFromJson(GridLayout layout, String itemsJson) {
+    public static GridLayout readJson(InputStream in) {
+        try (JsonParser parser = FACTORY.createParser(in)) {
+            return readLayout(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to deserialize layout", e);
+        }
+    }
+    
+    /**
+     * Update layout items from a JSON items array (from client).
+     * The array may hold only the items that changed; others are left untouched.
+     * 
+     * @return The number of items that changed
+     */
+    public static int updateItemsFromJson(GridLayout layout, String itemsJson) {
         if (itemsJson == null || itemsJson.trim().isEmpty()) {
-            return;
+            return 0;
         }
         
-        try {
-            JsonNode node = MAPPER.readTree(itemsJson);
-            if (!node.isArray()) {
+        try (JsonParser parser = FACTORY.createParser(itemsJson)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
                 throw new IllegalArgumentException("Expected JSON array for items");
             }
             
-            List<GridItemConfig> items = parseItemsArray((ArrayNode) node);
-            
-            // Update existing items while preserving ones not in the update
-            for (GridItemConfig item : items) {
-                if (layout.hasItem(item.getId())) {
-                    layout.putItem(item);
-                }
-            }
+            // Positions come from react-grid-layout, which already compacted them
+            return layout.updateResolvedItems(readItems(parser));
         } catch (IOException e) {
             throw new RuntimeException("Failed to update items from JSON", e);
         }
     }
     
     /**
-     * Parse an array of item objects
+     * Convert an items array received from the client. Non-object entries
+     * are skipped; a null array yields no items.
      */
-    private static List<GridItemConfig> parseItemsArray(ArrayNode itemsArray) {
-        List<GridItemConfig> items = new ArrayList<>();
-        
-        for (JsonNode itemNode : itemsArray) {
-            // Required fields (using 'i' to match react-grid-layout)
-            String id = itemNode.get("i").asText();
-            int x = itemNode.get("x").asInt(0);
-            int y = itemNode.get("y").asInt(0);
-            int w = itemNode.get("w").asInt(1);
-            int h = itemNode.get("h").asInt(1);
-            
-            GridItemConfig item = new GridItemConfig(id, x, y, w, h);
-            
-            // Optional fields
-            if (itemNode.has("minW") && !itemNode.get("minW").isNull()) {
-                item.setMinW(itemNode.get("minW").asInt());
-            }
-            if (itemNode.has("minH") && !itemNode.get("minH").isNull()) {
-                item.setMinH(itemNode.get("minH").asInt());
-            }
-            if (itemNode.has("maxW") && !itemNode.get("maxW").isNull()) {
-                item.setMaxW(itemNode.get("maxW").asInt());
-            }
-            if (itemNode.has("maxH") && !itemNode.get("maxH").isNull()) {
-                item.setMaxH(itemNode.get("maxH").asInt());
+    public static List<GridItemConfig> itemsFromJson(JsonArray items) {
+        List<GridItemConfig> converted = new ArrayList<>(items != null ? items.length() : 0);
+        if (items != null) {
+            for (int i = 0; i < items.length(); i++) {
+                JsonValue value = items.get(i);
+                if (value != null && value.getType() == JsonType.OBJECT) {
+                    converted.add(itemFromJsonObject((JsonObject) value));
+                }
             }
-            
-            // Boolean flags
-            if (itemNode.has("static")) {
-                item.setStatic(itemNode.get("static").asBoolean(false));
+        }
+        return converted;
+    }
+    
+    /**
+     * Convert one item object with the same defaults as {@link #readItem}
+     */
+    private static GridItemConfig itemFromJsonObject(JsonObject json) {
+        String id = json.hasKey("i") && json.get("i").getType() == JsonType.STRING ? json.getString("i") : null;
+        if (id == null) {
+            throw new IllegalArgumentException("Item is missing its 'i' field");
+        }
+        
+        GridItemConfig item = new GridItemConfig(id,
+                intValue(json, "x", 0), intValue(json, "y", 0),
+                intValue(json, "w", 1), intValue(json, "h", 1));
+        item.setMinW(optionalInt(json, "minW"));
+        item.setMinH(optionalInt(json, "minH"));
+        item.setMaxW(optionalInt(json, "maxW"));
+        item.setMaxH(optionalInt(json, "maxH"));
+        item.setStatic(booleanValue(json, "static", false));
+        item.setDraggable(booleanValue(json, "isDraggable", true));
+        item.setResizable(booleanValue(json, "isResizable", true));
+        return item;
+    }
+    
+    private static int intValue(JsonObject json, String key, int defaultValue) {
+        Integer value = optionalInt(json, key);
+        return value != null ? value : defaultValue;
+    }
+    
+    private static Integer optionalInt(JsonObject json, String key) {
+        JsonValue value = json.hasKey(key) ? json.get(key) : null;
+        return value != null && value.getType() == JsonType.NUMBER ? (int) value.asNumber() : null;
+    }
+    
+    private static boolean booleanValue(JsonObject json, String key, boolean defaultValue) {
+        JsonValue value = json.hasKey(key) ? json.get(key) : null;
+        return value != null && value.getType() == JsonType.BOOLEAN ? value.asBoolean() : defaultValue;
+    }
+    
+    /**
+     * Read a layout document. Properties are applied in a fixed order once
+     * the whole object has been read, so the resulting revision does not
+     * depend on the field order in the input.
+     */
+    private static GridLayout readLayout(JsonParser parser) throws IOException {
+        GridLayout layout = new GridLayout();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return layout;
+        }
+        
+        Integer columns = null;
+        Integer rowHeight = null;
+        Boolean compact = null;
+        boolean hasCompactType = false;
+        String compactType = null;
+        Long revision = null;
+        List<GridItemConfig> items = null;
+        
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "columns":
+                    columns = parser.getValueAsInt(12);
+                    break;
+                case "rowHeight":
+                    rowHeight = parser.getValueAsInt(30);
+                    break;
+                case "compact":
+                    compact = parser.getValueAsBoolean(true);
+                    break;
+                case "compactType":
+                    hasCompactType = true;
+                    compactType = parser.getValueAsString();
+                    break;
+                case "revision":
+                    revision = parser.getValueAsLong(0);
+                    break;
+                case "items":
+                    if (value == JsonToken.START_ARRAY) {
+                        items = readItems(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
             }
-            if (itemNode.has("isDraggable")) {
-                item.setDraggable(itemNode.get("isDraggable").asBoolean(true));
+        }
+        
+        // Layout properties
+        if (columns != null) {
+            layout.setColumns(columns);
+        }
+        if (rowHeight != null) {
+            layout.setRowHeight(rowHeight);
+        }
+        if (compact != null) {
+            layout.setCompact(compact);
+        }
+        if (hasCompactType) {
+            layout.setCompactType(compactType);
+        }
+        if (revision != null) {
+            layout.setRevision(revision);
+        }
+        
+        // Items
+        if (items != null) {
+            items.forEach(layout::putResolvedItem);
+        }
+        
+        return layout;
+    }
+    
+    /**
+     * Read an array of item objects; the parser must be positioned on its
+     * START_ARRAY token. Non-object entries are skipped.
+     */
+    private static List<GridItemConfig> readItems(JsonParser parser) throws IOException {
+        List<GridItemConfig> items = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.START_OBJECT) {
+                items.add(readItem(parser));
+            } else {
+                parser.skipChildren();
             }
-            if (itemNode.has("isResizable")) {
-                item.setResizable(itemNode.get("isResizable").asBoolean(true));
+        }
+        return items;
+    }
+    
+    /**
+     * Read one item object; the parser must be positioned on its START_OBJECT token
+     */
+    private static GridItemConfig readItem(JsonParser parser) throws IOException {
+        GridItemConfig item = new GridItemConfig(null, 0, 0, 1, 1);
+        
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            boolean isNull = value == JsonToken.VALUE_NULL;
+            switch (field) {
+                // Required fields (using 'i' to match react-grid-layout)
+                case "i":
+                    item.setId(parser.getValueAsString());
+                    break;
+                case "x":
+                    item.setX(parser.getValueAsInt(0));
+                    break;
+                case "y":
+                    item.setY(parser.getValueAsInt(0));
+                    break;
+                case "w":
+                    item.setW(parser.getValueAsInt(1));
+                    break;
+                case "h":
+                    item.setH(parser.getValueAsInt(1));
+                    break;
+                // Optional fields
+                case "minW":
+                    item.setMinW(isNull ? null : parser.getValueAsInt());
+                    break;
+                case "minH":
+                    item.setMinH(isNull ? null : parser.getValueAsInt());
+                    break;
+                case "maxW":
+                    item.setMaxW(isNull ? null : parser.getValueAsInt());
+                    break;
+                case "maxH":
+                    item.setMaxH(isNull ? null : parser.getValueAsInt());
+                    break;
+                // Boolean flags
+                case "static":
+                    item.setStatic(parser.getValueAsBoolean(false));
+                    break;
+                case "isDraggable":
+                    item.setDraggable(parser.getValueAsBoolean(true));
+                    break;
+                case "isResizable":
+                    item.setResizable(parser.getValueAsBoolean(true));
+                    break;
+                default:
+                    parser.skipChildren();
             }
-            
-            items.add(item);
         }
         
-        return items;
+        if (item.getId() == null) {
+            throw new IllegalArgumentException("Item is missing its 'i' field");
+        }
+        return item;
     }
     
     /**
@@ -250,10 +555,8 @@ public class LayoutSerializer {
      */
     public static String toPrettyJson(GridLayout layout) {
         try {
-            String json = toJson(layout);
-            JsonNode node = MAPPER.readTree(json);
-            return MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(node);
-        } catch (JsonProcessingException e) {
+            return writeToString(gen -> writeLayout(gen, layout), layout.size(), true);
+        } catch (IOException e) {
             throw new RuntimeException("Failed to create pretty JSON", e);
         }
     }
@@ -0,0 +1,170 @@
+package com.example.dashboard;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable point-in-time view of a {@link GridLayout} at one revision.
+ *
+ * Snapshots are published by {@link GridLayout#getSnapshot()}: reading the
+ * snapshot of an unchanged layout returns the same instance, and publishing a
+ * new revision only copies the entries that changed since the previous one
+ * (the item map is a persistent trie shared between snapshots). A snapshot
+ * never changes after it was handed out, so it can be kept, compared or
+ * passed to other threads freely.
+ */
+public final class LayoutSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Comparator<LayoutItem> INSERTION_ORDER = Comparator.comparingLong(item -> item.order);
+
+    private final long revision;
+    private final int columns;
+    private final int rowHeight;
+    private final boolean compact;
+    private final String compactType;
+    private final PersistentItemMap items;
+
+    /**
+     * Identity of the layout that published this snapshot, or null after
+     * deserialization. Revisions are only comparable within one source.
+     */
+    private final transient Object source;
+
+    /**
+     * Items in layout order, built on first use
+     */
+    private transient List<LayoutItem> orderedItems;
+
+    LayoutSnapshot(long revision, int columns, int rowHeight, boolean compact, String compactType,
+                   PersistentItemMap items, Object source) {
+        this.revision = revision;
+        this.columns = columns;
+        this.rowHeight = rowHeight;
+        this.compact = compact;
+        this.compactType = compactType;
+        this.items = items;
+        this.source = source;
+    }
+
+    /**
+     * Identity of the layout that published this snapshot, or null if unknown
+     */
+    Object source() {
+        return source;
+    }
+
+    /**
+     * Item map shared with the next snapshot of the same layout
+     */
+    PersistentItemMap itemMap() {
+        return items;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRowHeight() {
+        return rowHeight;
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    public String getCompactType() {
+        return compactType;
+    }
+
+    /**
+     * Get the number of items
+     */
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Get an item by ID, or null if not present
+     */
+    public LayoutItem getItem(String id) {
+        return items.get(id);
+    }
+
+    /**
+     * Check if an item exists
+     */
+    public boolean hasItem(String id) {
+        return items.get(id) != null;
+    }
+
+    /**
+     * Get all items in the same order as {@link GridLayout#getItems()}.
+     *
+     * The item map is keyed by ID, not by order, so the first call on each
+     * snapshot collects and sorts all n items: O(n log n) per published
+     * revision, however few items changed. Later calls on the same snapshot
+     * return the cached list. Lookups by ID and {@link GridLayout#changesSince}
+     * do not pay this cost.
+     */
+    public List<LayoutItem> getItems() {
+        List<LayoutItem> ordered = orderedItems;
+        if (ordered == null) {
+            List<LayoutItem> collected = new ArrayList<>(items.size());
+            items.forEach(collected::add);
+            collected.sort(INSERTION_ORDER);
+            ordered = List.copyOf(collected);
+            orderedItems = ordered;
+        }
+        return ordered;
+    }
+
+    /**
+     * Get all item IDs in layout order
+     */
+    public Set<String> getItemIds() {
+        Set<String> ids = new LinkedHashSet<>();
+        for (LayoutItem item : getItems()) {
+            ids.add(item.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Create a mutable layout with the contents of this snapshot. Until it
+     * is changed, the layout's {@link GridLayout#getSnapshot()} returns this
+     * snapshot, and snapshots after a change share the unchanged items.
+     */
+    public GridLayout toGridLayout() {
+        GridLayout layout = new GridLayout(columns, rowHeight);
+        layout.setCompact(compact);
+        layout.setCompactType(compactType);
+        for (LayoutItem item : getItems()) {
+            layout.putResolvedItem(item.toConfig());
+        }
+        layout.setRevision(revision);
+        layout.adoptSnapshot(this);
+        return layout;
+    }
+
+    @Override
+    public String toString() {
+        return "LayoutSnapshot{" +
+                "items=" + items.size() +
+                ", revision=" + revision +
+                ", columns=" + columns +
+                ", rowHeight=" + rowHeight +
+                ", compact=" + compact +
+                ", compactType='" + compactType + '\'' +
+                '}';
+    }
+}
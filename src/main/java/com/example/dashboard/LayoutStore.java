@@ -0,0 +1,42 @@
+package com.example.dashboard;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Durable storage of dashboard layouts, keyed by user and dashboard.
+ *
+ * Implementations are called from {@link LayoutPersistenceService} worker
+ * threads, never while a Vaadin session is locked, and must be thread-safe.
+ * Calls for the same key made through the service never overlap.
+ */
+public interface LayoutStore {
+
+    /**
+     * Store a layout, replacing any layout previously stored under the key
+     *
+     * @param key The layout key
+     * @param snapshot The layout to store
+     */
+    void save(LayoutKey key, LayoutSnapshot snapshot) throws IOException;
+
+    /**
+     * Load a stored layout
+     *
+     * @param key The layout key
+     * @return The stored layout, or null if nothing is stored under the key
+     */
+    GridLayout load(LayoutKey key) throws IOException;
+
+    /**
+     * List the keys of all layouts stored for a user, ordered by dashboard
+     */
+    List<LayoutKey> list(String user) throws IOException;
+
+    /**
+     * Remove a stored layout
+     *
+     * @return true if a layout was stored under the key
+     */
+    boolean delete(LayoutKey key) throws IOException;
+}
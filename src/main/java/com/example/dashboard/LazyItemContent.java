@@ -0,0 +1,92 @@
+package com.example.dashboard;
+
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.function.SerializableConsumer;
+import com.vaadin.flow.function.SerializableFunction;
+import com.vaadin.flow.function.SerializableSupplier;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Content of a {@link DashboardGrid} item that is created on first use.
+ *
+ * Either the component is created directly by a supplier, or its data is
+ * first loaded on a background executor and the component is then created
+ * from that data in {@link UI#access}.
+ */
+final class LazyItemContent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final SerializableSupplier<?> loader;
+    private final SerializableFunction<Object, ? extends Component> factory;
+    private final Executor executor;
+    private boolean loading;
+
+    private LazyItemContent(SerializableSupplier<?> loader,
+            SerializableFunction<Object, ? extends Component> factory, Executor executor) {
+        this.loader = loader;
+        this.factory = factory;
+        this.executor = executor;
+    }
+
+    /**
+     * Content created by a supplier on the UI thread
+     */
+    static LazyItemContent of(SerializableSupplier<? extends Component> supplier) {
+        Objects.requireNonNull(supplier, "Content supplier must not be null");
+        return new LazyItemContent(null, data -> supplier.get(), null);
+    }
+
+    /**
+     * Content created from data that is loaded on the given executor
+     */
+    @SuppressWarnings("unchecked")
+    static <T> LazyItemContent of(SerializableSupplier<T> loader, Executor executor,
+            SerializableFunction<T, ? extends Component> factory) {
+        Objects.requireNonNull(loader, "Data loader must not be null");
+        Objects.requireNonNull(executor, "Executor must not be null");
+        Objects.requireNonNull(factory, "Content factory must not be null");
+        return new LazyItemContent(loader, (SerializableFunction<Object, ? extends Component>) factory, executor);
+    }
+
+    /**
+     * Whether the data is loaded in the background before the content can be created
+     */
+    boolean isBackground() {
+        return loader != null;
+    }
+
+    boolean isLoading() {
+        return loading;
+    }
+
+    /**
+     * Create the content directly. Only for content without background loading.
+     */
+    Component create() {
+        return Objects.requireNonNull(factory.apply(null), "Content supplier returned null");
+    }
+
+    /**
+     * Load the data on the executor, then create the content and hand it
+     * over while holding the session lock of the given UI. A failure to
+     * load is rethrown there, so it reaches the session's error handler.
+     */
+    void load(UI ui, SerializableConsumer<Component> loaded) {
+        loading = true;
+        CompletableFuture.supplyAsync(loader, executor).whenComplete((data, error) -> ui.access(() -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                throw new IllegalStateException("Loading item content failed", cause);
+            }
+            loaded.accept(Objects.requireNonNull(factory.apply(data), "Content factory returned null"));
+        }));
+    }
+}
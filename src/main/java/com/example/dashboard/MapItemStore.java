@@ -0,0 +1,82 @@
+package com.example.dashboard;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Default item storage: the configs themselves in a LinkedHashMap
+ */
+final class MapItemStore implements ItemStore {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, GridItemConfig> items = new LinkedHashMap<>();
+
+    @Override
+    public GridItemConfig get(String id) {
+        return items.get(id);
+    }
+
+    @Override
+    public GridItemConfig put(GridItemConfig config) {
+        items.put(config.getId(), config);
+        return config;
+    }
+
+    @Override
+    public GridItemConfig remove(String id) {
+        return items.remove(id);
+    }
+
+    @Override
+    public boolean containsKey(String id) {
+        return items.containsKey(id);
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        items.clear();
+    }
+
+    @Override
+    public Collection<GridItemConfig> values() {
+        return Collections.unmodifiableCollection(items.values());
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return Collections.unmodifiableSet(items.keySet());
+    }
+
+    @Override
+    public ItemStore copy() {
+        MapItemStore copy = new MapItemStore();
+        for (GridItemConfig item : items.values()) {
+            GridItemConfig itemCopy = new GridItemConfig(
+                item.getId(), item.getX(), item.getY(), item.getW(), item.getH()
+            );
+            itemCopy.setMinW(item.getMinW());
+            itemCopy.setMinH(item.getMinH());
+            itemCopy.setMaxW(item.getMaxW());
+            itemCopy.setMaxH(item.getMaxH());
+            itemCopy.setStatic(item.isStatic());
+            itemCopy.setDraggable(item.isDraggable());
+            itemCopy.setResizable(item.isResizable());
+            copy.items.put(itemCopy.getId(), itemCopy);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.dashboard;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Cell occupancy index backing {@link GridLayout} placement queries.
+ *
+ * Keeps per-cell item counts (counts rather than bits so that overlapping
+ * items can be removed independently) plus a per-row fill count used to skip
+ * rows that cannot fit a candidate width. Only occupied rows are stored, so
+ * memory follows the rows items actually cover rather than the largest item
+ * bottom. The index is updated incrementally on every put/remove, so finding
+ * a free slot only touches the occupied rows it scans.
+ *
+ * Footprints are clipped to the grid bounds and remembered per item ID, so an
+ * item can always be removed exactly even if its config was mutated in place.
+ */
+final class OccupancyIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Cell counts of one occupied row
+     */
+    private static final class Row implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        final int[] cells;
+
+        /**
+         * Number of occupied cells
+         */
+        int fill;
+
+        Row(int columns) {
+            cells = new int[columns];
+        }
+
+        Row copy() {
+            Row copy = new Row(cells.length);
+            System.arraycopy(cells, 0, copy.cells, 0, cells.length);
+            copy.fill = fill;
+            return copy;
+        }
+    }
+
+    /**
+     * Clipped footprint {x, y, w, h} of every indexed item
+     */
+    private final Map<String, int[]> footprints = new HashMap<>();
+
+    private int columns;
+
+    /**
+     * Occupied rows by row index; rows without any occupied cell are absent
+     */
+    private final TreeMap<Integer, Row> rows = new TreeMap<>();
+
+    OccupancyIndex(int columns) {
+        this.columns = Math.max(columns, 0);
+    }
+
+    /**
+     * Index an item, replacing any footprint previously recorded for its ID
+     */
+    void add(GridItemConfig item) {
+        remove(item.getId());
+
+        int x0 = Math.max(item.getX(), 0);
+        int y0 = Math.max(item.getY(), 0);
+        int x1 = Math.min(item.getX() + item.getW(), columns);
+        int y1 = (int) Math.min((long) item.getY() + item.getH(), Integer.MAX_VALUE);
+        if (x1 <= x0 || y1 <= y0) {
+            return;
+        }
+
+        int[] footprint = {x0, y0, x1 - x0, y1 - y0};
+        footprints.put(item.getId(), footprint);
+        mark(footprint, 1);
+    }
+
+    /**
+     * Remove the footprint recorded for an item ID, if any
+     */
+    void remove(String id) {
+        int[] footprint = footprints.remove(id);
+        if (footprint != null) {
+            mark(footprint, -1);
+        }
+    }
+
+    /**
+     * Drop all footprints
+     */
+    void clear() {
+        footprints.clear();
+        rows.clear();
+    }
+
+    /**
+     * Re-index the given items for a (possibly different) column count
+     */
+    void rebuild(int columns, Iterable<GridItemConfig> items) {
+        this.columns = Math.max(columns, 0);
+        clear();
+        for (GridItemConfig item : items) {
+            add(item);
+        }
+    }
+
+    /**
+     * Create an independent index with the same footprints
+     */
+    OccupancyIndex copy() {
+        OccupancyIndex copy = new OccupancyIndex(columns);
+        // Footprint arrays are never modified once recorded, so they can be shared
+        copy.footprints.putAll(footprints);
+        rows.forEach((y, row) -> copy.rows.put(y, row.copy()));
+        return copy;
+    }
+
+    /**
+     * One past the last occupied row (0 when empty)
+     */
+    int getHeight() {
+        return rows.isEmpty() ? 0 : rows.lastKey() + 1;
+    }
+
+    /**
+     * Check whether a rectangle is completely free. Cells outside the grid
+     * columns count as occupied; rows below the last occupied row are free.
+     */
+    boolean isFree(int x, int y, int w, int h) {
+        if (x < 0 || y < 0 || x + w > columns) {
+            return false;
+        }
+        return firstBlockedColumn(x, y, w, h) < 0;
+    }
+
+    /**
+     * Find the first free slot of the given size in reading order (top to
+     * bottom, left to right). Returns {@code {x, y}} packed as
+     * {@code ((long) y << 32) | x}, or -1 if the width does not fit the grid.
+     */
+    long findFree(int w, int h) {
+        if (w > columns) {
+            return -1;
+        }
+        int maxFill = columns - Math.max(w, 0);
+        int height = getHeight();
+
+        for (int y = 0; y <= height; y++) {
+            if (!rowsCanFit(y, h, maxFill)) {
+                continue;
+            }
+            int x = 0;
+            while (x <= columns - w) {
+                int blocked = firstBlockedColumn(x, y, w, h);
+                if (blocked < 0) {
+                    return ((long) y << 32) | x;
+                }
+                // Any start up to the blocking column would overlap it as well
+                x = blocked + 1;
+            }
+        }
+        // Unreachable for w <= columns: the row at 'height' is always empty
+        return ((long) height << 32);
+    }
+
+    private boolean rowsCanFit(int y, int h, int maxFill) {
+        for (Row row : occupiedRows(y, h).values()) {
+            if (row.fill > maxFill) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Right-most occupied column inside the rectangle, or -1 if it is free
+     */
+    private int firstBlockedColumn(int x, int y, int w, int h) {
+        int blocked = -1;
+        for (Row row : occupiedRows(y, h).values()) {
+            for (int col = x + w - 1; col > blocked && col >= x; col--) {
+                if (row.cells[col] != 0) {
+                    blocked = col;
+                    break;
+                }
+            }
+        }
+        return blocked;
+    }
+
+    /**
+     * Occupied rows from y (inclusive) to y + h (exclusive)
+     */
+    private Map<Integer, Row> occupiedRows(int y, int h) {
+        long end = Math.min((long) y + Math.max(h, 0), Integer.MAX_VALUE);
+        return rows.subMap(y, true, (int) end, false);
+    }
+
+    private void mark(int[] footprint, int delta) {
+        int x = footprint[0];
+        int y = footprint[1];
+        int w = footprint[2];
+        int h = footprint[3];
+        for (int index = y; index < y + h; index++) {
+            Row row = rows.get(index);
+            if (row == null) {
+                row = new Row(columns);
+                rows.put(index, row);
+            }
+            for (int col = x; col < x + w; col++) {
+                int before = row.cells[col];
+                row.cells[col] = before + delta;
+                if (before == 0 && delta > 0) {
+                    row.fill++;
+                } else if (before + delta == 0 && delta < 0) {
+                    row.fill--;
+                }
+            }
+            if (row.fill == 0) {
+                rows.remove(index);
+            }
+        }
+    }
+}
@@ -0,0 +1,569 @@
+package com.example.dashboard;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Struct-of-arrays item storage for very large layouts.
+ *
+ * Item values live in parallel primitive arrays indexed by slot (a flags byte
+ * holds the booleans and the presence bits of the optional min/max values),
+ * and IDs are mapped to slots by an open-addressing table with linear probing.
+ * Slots are assigned in insertion order and removed slots are reclaimed by
+ * compacting the arrays, so iteration is a linear scan.
+ *
+ * Callers see items through {@link ItemView} flyweights that read and write
+ * the arrays directly. Views are not retained by the store: each lookup or
+ * iteration step hands out a new, short-lived view, so the only per-item
+ * memory is the arrays themselves. A view follows its item when slots are
+ * compacted; once the item is removed, the view can no longer be used.
+ * {@link #remove} returns a plain copy of the removed item instead.
+ */
+final class PackedItemStore implements ItemStore {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final int STATIC = 1;
+    private static final int DRAGGABLE = 1 << 1;
+    private static final int RESIZABLE = 1 << 2;
+    private static final int HAS_MIN_W = 1 << 3;
+    private static final int HAS_MIN_H = 1 << 4;
+    private static final int HAS_MAX_W = 1 << 5;
+    private static final int HAS_MAX_H = 1 << 6;
+
+    /**
+     * ID per slot, null for removed slots
+     */
+    private String[] ids;
+    private int[] xs;
+    private int[] ys;
+    private int[] ws;
+    private int[] hs;
+    private int[] minWs;
+    private int[] minHs;
+    private int[] maxWs;
+    private int[] maxHs;
+    private byte[] flags;
+
+    /**
+     * Number of slots in use, including removed ones
+     */
+    private int slots;
+
+    /**
+     * Number of stored items
+     */
+    private int live;
+
+    /**
+     * Open-addressing index: slot + 1 per bucket, 0 for an empty bucket
+     */
+    private int[] table;
+
+    PackedItemStore() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public GridItemConfig get(String id) {
+        int slot = indexOf(id);
+        return slot < 0 ? null : view(slot);
+    }
+
+    @Override
+    public GridItemConfig put(GridItemConfig config) {
+        String id = config.getId();
+        int slot = indexOf(id);
+        if (slot < 0) {
+            if (slots == ids.length) {
+                grow(ids.length * 2);
+            }
+            if ((live + 1) * 2 > table.length) {
+                rehash(table.length * 2);
+            }
+            slot = slots++;
+            ids[slot] = id;
+            insert(slot);
+            live++;
+        }
+        write(slot, config);
+        return view(slot);
+    }
+
+    @Override
+    public GridItemConfig remove(String id) {
+        int slot = indexOf(id);
+        if (slot < 0) {
+            return null;
+        }
+
+        GridItemConfig removed = new GridItemConfig();
+        copyTo(slot, removed);
+
+        delete(slot);
+        ids[slot] = null;
+        live--;
+        if (slots - live > Math.max(INITIAL_CAPACITY, live)) {
+            compactSlots();
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean containsKey(String id) {
+        return indexOf(id) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return live;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return live == 0;
+    }
+
+    @Override
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public Collection<GridItemConfig> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<GridItemConfig> iterator() {
+                return new SlotIterator<>() {
+                    @Override
+                    GridItemConfig at(int slot) {
+                        return view(slot);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return live;
+            }
+        };
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new SlotIterator<>() {
+                    @Override
+                    String at(int slot) {
+                        return ids[slot];
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof String && indexOf((String) o) >= 0;
+            }
+
+            @Override
+            public int size() {
+                return live;
+            }
+        };
+    }
+
+    @Override
+    public ItemStore copy() {
+        PackedItemStore copy = new PackedItemStore();
+        copy.ids = ids.clone();
+        copy.xs = xs.clone();
+        copy.ys = ys.clone();
+        copy.ws = ws.clone();
+        copy.hs = hs.clone();
+        copy.minWs = minWs.clone();
+        copy.minHs = minHs.clone();
+        copy.maxWs = maxWs.clone();
+        copy.maxHs = maxHs.clone();
+        copy.flags = flags.clone();
+        copy.table = table.clone();
+        copy.slots = slots;
+        copy.live = live;
+        return copy;
+    }
+
+    private ItemView view(int slot) {
+        return new ItemView(this, ids[slot], slot);
+    }
+
+    private void write(int slot, GridItemConfig config) {
+        Integer minW = config.getMinW();
+        Integer minH = config.getMinH();
+        Integer maxW = config.getMaxW();
+        Integer maxH = config.getMaxH();
+        int bits = (config.isStatic() ? STATIC : 0)
+                | (config.isDraggable() ? DRAGGABLE : 0)
+                | (config.isResizable() ? RESIZABLE : 0);
+
+        xs[slot] = config.getX();
+        ys[slot] = config.getY();
+        ws[slot] = config.getW();
+        hs[slot] = config.getH();
+        flags[slot] = (byte) bits;
+        setOptional(minWs, slot, HAS_MIN_W, minW);
+        setOptional(minHs, slot, HAS_MIN_H, minH);
+        setOptional(maxWs, slot, HAS_MAX_W, maxW);
+        setOptional(maxHs, slot, HAS_MAX_H, maxH);
+    }
+
+    private void copyTo(int slot, GridItemConfig target) {
+        target.setId(ids[slot]);
+        target.setX(xs[slot]);
+        target.setY(ys[slot]);
+        target.setW(ws[slot]);
+        target.setH(hs[slot]);
+        target.setMinW(getOptional(minWs, slot, HAS_MIN_W));
+        target.setMinH(getOptional(minHs, slot, HAS_MIN_H));
+        target.setMaxW(getOptional(maxWs, slot, HAS_MAX_W));
+        target.setMaxH(getOptional(maxHs, slot, HAS_MAX_H));
+        target.setStatic(hasFlag(slot, STATIC));
+        target.setDraggable(hasFlag(slot, DRAGGABLE));
+        target.setResizable(hasFlag(slot, RESIZABLE));
+    }
+
+    private boolean hasFlag(int slot, int flag) {
+        return (flags[slot] & flag) != 0;
+    }
+
+    private void setFlag(int slot, int flag, boolean value) {
+        flags[slot] = (byte) (value ? flags[slot] | flag : flags[slot] & ~flag);
+    }
+
+    private Integer getOptional(int[] values, int slot, int presence) {
+        return hasFlag(slot, presence) ? values[slot] : null;
+    }
+
+    private void setOptional(int[] values, int slot, int presence, Integer value) {
+        setFlag(slot, presence, value != null);
+        values[slot] = value != null ? value : 0;
+    }
+
+    // ID index
+
+    private static int hash(String id) {
+        int h = id.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private int indexOf(String id) {
+        int mask = table.length - 1;
+        for (int bucket = hash(id) & mask; ; bucket = (bucket + 1) & mask) {
+            int entry = table[bucket];
+            if (entry == 0) {
+                return -1;
+            }
+            if (ids[entry - 1].equals(id)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private void insert(int slot) {
+        int mask = table.length - 1;
+        int bucket = hash(ids[slot]) & mask;
+        while (table[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        table[bucket] = slot + 1;
+    }
+
+    /**
+     * Remove a slot from the index, shifting later entries of the probe
+     * sequence back so that lookups need no tombstones
+     */
+    private void delete(int slot) {
+        int mask = table.length - 1;
+        int hole = hash(ids[slot]) & mask;
+        while (table[hole] != slot + 1) {
+            hole = (hole + 1) & mask;
+        }
+        table[hole] = 0;
+
+        for (int bucket = (hole + 1) & mask; table[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int home = hash(ids[table[bucket] - 1]) & mask;
+            // Move the entry into the hole unless its home lies cyclically in (hole, bucket]
+            boolean reachable = hole <= bucket
+                    ? hole < home && home <= bucket
+                    : hole < home || home <= bucket;
+            if (!reachable) {
+                table[hole] = table[bucket];
+                table[bucket] = 0;
+                hole = bucket;
+            }
+        }
+    }
+
+    private void rehash(int buckets) {
+        table = new int[buckets];
+        for (int slot = 0; slot < slots; slot++) {
+            if (ids[slot] != null) {
+                insert(slot);
+            }
+        }
+    }
+
+    // Slot management
+
+    private void allocate(int capacity) {
+        ids = new String[capacity];
+        xs = new int[capacity];
+        ys = new int[capacity];
+        ws = new int[capacity];
+        hs = new int[capacity];
+        minWs = new int[capacity];
+        minHs = new int[capacity];
+        maxWs = new int[capacity];
+        maxHs = new int[capacity];
+        flags = new byte[capacity];
+        table = new int[capacity * 2];
+        slots = 0;
+        live = 0;
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        ws = Arrays.copyOf(ws, capacity);
+        hs = Arrays.copyOf(hs, capacity);
+        minWs = Arrays.copyOf(minWs, capacity);
+        minHs = Arrays.copyOf(minHs, capacity);
+        maxWs = Arrays.copyOf(maxWs, capacity);
+        maxHs = Arrays.copyOf(maxHs, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+    }
+
+    /**
+     * Move live slots down over removed ones, keeping their order
+     */
+    private void compactSlots() {
+        int target = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            if (ids[slot] == null) {
+                continue;
+            }
+            if (slot != target) {
+                ids[target] = ids[slot];
+                xs[target] = xs[slot];
+                ys[target] = ys[slot];
+                ws[target] = ws[slot];
+                hs[target] = hs[slot];
+                minWs[target] = minWs[slot];
+                minHs[target] = minHs[slot];
+                maxWs[target] = maxWs[slot];
+                maxHs[target] = maxHs[slot];
+                flags[target] = flags[slot];
+            }
+            target++;
+        }
+        Arrays.fill(ids, target, slots, null);
+        slots = target;
+        rehash(table.length);
+    }
+
+    /**
+     * Iterates live slots in order
+     */
+    private abstract class SlotIterator<T> implements Iterator<T> {
+
+        private int next = advance(0);
+
+        private int advance(int from) {
+            while (from < slots && ids[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        abstract T at(int slot);
+
+        @Override
+        public boolean hasNext() {
+            return next < slots;
+        }
+
+        @Override
+        public T next() {
+            if (next >= slots) {
+                throw new NoSuchElementException();
+            }
+            T value = at(next);
+            next = advance(next + 1);
+            return value;
+        }
+    }
+
+    /**
+     * Flyweight config reading and writing the slot of one item. The slot is
+     * looked up again by ID if the item has moved since the last access.
+     */
+    static final class ItemView extends GridItemConfig {
+
+        private static final long serialVersionUID = 1L;
+
+        private final PackedItemStore store;
+        private final String id;
+        private int slot;
+
+        ItemView(PackedItemStore store, String id, int slot) {
+            this.store = store;
+            this.id = id;
+            this.slot = slot;
+        }
+
+        /**
+         * Current slot of the item
+         *
+         * @throws IllegalStateException if the item is no longer stored
+         */
+        private int slot() {
+            if (slot >= store.slots || store.ids[slot] != id) {
+                slot = store.indexOf(id);
+                if (slot < 0) {
+                    throw new IllegalStateException("Item " + id + " is no longer stored");
+                }
+            }
+            return slot;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public void setId(String id) {
+            if (!this.id.equals(id)) {
+                throw new IllegalStateException("Cannot change the ID of a stored item");
+            }
+        }
+
+        @Override
+        public int getX() {
+            return store.xs[slot()];
+        }
+
+        @Override
+        public void setX(int x) {
+            store.xs[slot()] = x;
+        }
+
+        @Override
+        public int getY() {
+            return store.ys[slot()];
+        }
+
+        @Override
+        public void setY(int y) {
+            store.ys[slot()] = y;
+        }
+
+        @Override
+        public int getW() {
+            return store.ws[slot()];
+        }
+
+        @Override
+        public void setW(int w) {
+            store.ws[slot()] = w;
+        }
+
+        @Override
+        public int getH() {
+            return store.hs[slot()];
+        }
+
+        @Override
+        public void setH(int h) {
+            store.hs[slot()] = h;
+        }
+
+        @Override
+        public Integer getMinW() {
+            return store.getOptional(store.minWs, slot(), HAS_MIN_W);
+        }
+
+        @Override
+        public void setMinW(Integer minW) {
+            store.setOptional(store.minWs, slot(), HAS_MIN_W, minW);
+        }
+
+        @Override
+        public Integer getMinH() {
+            return store.getOptional(store.minHs, slot(), HAS_MIN_H);
+        }
+
+        @Override
+        public void setMinH(Integer minH) {
+            store.setOptional(store.minHs, slot(), HAS_MIN_H, minH);
+        }
+
+        @Override
+        public Integer getMaxW() {
+            return store.getOptional(store.maxWs, slot(), HAS_MAX_W);
+        }
+
+        @Override
+        public void setMaxW(Integer maxW) {
+            store.setOptional(store.maxWs, slot(), HAS_MAX_W, maxW);
+        }
+
+        @Override
+        public Integer getMaxH() {
+            return store.getOptional(store.maxHs, slot(), HAS_MAX_H);
+        }
+
+        @Override
+        public void setMaxH(Integer maxH) {
+            store.setOptional(store.maxHs, slot(), HAS_MAX_H, maxH);
+        }
+
+        @Override
+        public boolean isStatic() {
+            return store.hasFlag(slot(), STATIC);
+        }
+
+        @Override
+        public void setStatic(boolean isStatic) {
+            store.setFlag(slot(), STATIC, isStatic);
+        }
+
+        @Override
+        public boolean isDraggable() {
+            return store.hasFlag(slot(), DRAGGABLE);
+        }
+
+        @Override
+        public void setDraggable(boolean isDraggable) {
+            store.setFlag(slot(), DRAGGABLE, isDraggable);
+        }
+
+        @Override
+        public boolean isResizable() {
+            return store.hasFlag(slot(), RESIZABLE);
+        }
+
+        @Override
+        public void setResizable(boolean isResizable) {
+            store.setFlag(slot(), RESIZABLE, isResizable);
+        }
+    }
+}
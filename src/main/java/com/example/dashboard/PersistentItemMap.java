@@ -0,0 +1,385 @@
+package com.example.dashboard;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Persistent (immutable) map of item ID to {@link LayoutItem}, implemented as
+ * a hash array mapped trie with 32-way branching.
+ *
+ * put/remove return a new map that shares every node off the modified path
+ * with the original, so an update copies O(log32 n) small arrays instead of
+ * the whole map, and older versions stay valid for whoever still holds them.
+ * Items whose ID hashes collide completely are kept in a collision node.
+ */
+final class PersistentItemMap implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    static final PersistentItemMap EMPTY = new PersistentItemMap(null, 0);
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final Node root;
+    private final int size;
+
+    private PersistentItemMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    LayoutItem get(String id) {
+        return root == null ? null : root.find(id, id.hashCode(), 0);
+    }
+
+    /**
+     * Map the item's ID to the item. Returns this map if it already holds
+     * the very same item instance.
+     */
+    PersistentItemMap put(LayoutItem item) {
+        boolean[] added = new boolean[1];
+        int hash = item.getId().hashCode();
+        Node newRoot = root == null
+                ? new BitmapNode(bit(hash, 0), new Object[] {item})
+                : root.put(item, hash, 0, added);
+        if (root == null) {
+            added[0] = true;
+        }
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentItemMap(newRoot, added[0] ? size + 1 : size);
+    }
+
+    PersistentItemMap remove(String id) {
+        if (root == null) {
+            return this;
+        }
+        Node newRoot = root.remove(id, id.hashCode(), 0);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot == null ? EMPTY : new PersistentItemMap(newRoot, size - 1);
+    }
+
+    /**
+     * Visit all items in hash order
+     */
+    void forEach(Consumer<LayoutItem> action) {
+        if (root != null) {
+            root.forEach(action);
+        }
+    }
+
+    /**
+     * Report every ID whose item differs between two maps, as (item in
+     * {@code from}, item in {@code to}) with null for an absent item. Items
+     * are compared by identity and subtrees shared by both maps are skipped,
+     * so comparing two versions of one map costs about as much as the
+     * updates between them.
+     */
+    static void diff(PersistentItemMap from, PersistentItemMap to, BiConsumer<LayoutItem, LayoutItem> changed) {
+        diff(from.root, to.root, changed);
+    }
+
+    private static void diff(Object from, Object to, BiConsumer<LayoutItem, LayoutItem> changed) {
+        if (from == to) {
+            return;
+        }
+        if (from instanceof BitmapNode && to instanceof BitmapNode) {
+            BitmapNode a = (BitmapNode) from;
+            BitmapNode b = (BitmapNode) to;
+            int bits = a.bitmap | b.bitmap;
+            while (bits != 0) {
+                int bit = bits & -bits;
+                bits &= bits - 1;
+                diff((a.bitmap & bit) != 0 ? a.entries[a.index(bit)] : null,
+                        (b.bitmap & bit) != 0 ? b.entries[b.index(bit)] : null, changed);
+            }
+            return;
+        }
+        if (from instanceof LayoutItem && to instanceof LayoutItem
+                && ((LayoutItem) from).getId().equals(((LayoutItem) to).getId())) {
+            changed.accept((LayoutItem) from, (LayoutItem) to);
+            return;
+        }
+
+        // Differently shaped subtrees (or a subtree against nothing): compare their items by ID
+        Map<String, LayoutItem> after = new HashMap<>();
+        collect(to, after);
+        Map<String, LayoutItem> before = new HashMap<>();
+        collect(from, before);
+        before.forEach((id, item) -> {
+            LayoutItem other = after.remove(id);
+            if (other != item) {
+                changed.accept(item, other);
+            }
+        });
+        after.values().forEach(item -> changed.accept(null, item));
+    }
+
+    private static void collect(Object entry, Map<String, LayoutItem> into) {
+        if (entry instanceof Node) {
+            ((Node) entry).forEach(item -> into.put(item.getId(), item));
+        } else if (entry != null) {
+            LayoutItem item = (LayoutItem) entry;
+            into.put(item.getId(), item);
+        }
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * Node holding two entries that start to differ at or below the given shift
+     */
+    private static Node pair(Object a, int hashA, Object b, int hashB, int shift) {
+        if (hashA == hashB) {
+            // Only leaves can have equal full hashes here; collision nodes are handled by CollisionNode.put
+            return new CollisionNode(hashA, new LayoutItem[] {(LayoutItem) a, (LayoutItem) b});
+        }
+        int bitA = bit(hashA, shift);
+        int bitB = bit(hashB, shift);
+        if (bitA == bitB) {
+            return new BitmapNode(bitA, new Object[] {pair(a, hashA, b, hashB, shift + BITS)});
+        }
+        return new BitmapNode(bitA | bitB, Integer.compareUnsigned(bitA, bitB) < 0
+                ? new Object[] {a, b} : new Object[] {b, a});
+    }
+
+    private abstract static class Node implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        abstract LayoutItem find(String id, int hash, int shift);
+
+        abstract Node put(LayoutItem item, int hash, int shift, boolean[] added);
+
+        /**
+         * @return This node if the ID is absent, null if the node became empty
+         */
+        abstract Node remove(String id, int hash, int shift);
+
+        /**
+         * The only entry of this node if it holds exactly one item and no children
+         */
+        abstract LayoutItem singleItem();
+
+        abstract void forEach(Consumer<LayoutItem> action);
+    }
+
+    /**
+     * Interior node: a bitmap of occupied slots and a dense array holding a
+     * LayoutItem or a child Node per occupied slot
+     */
+    private static final class BitmapNode extends Node {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int bitmap;
+        private final Object[] entries;
+
+        BitmapNode(int bitmap, Object[] entries) {
+            this.bitmap = bitmap;
+            this.entries = entries;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        LayoutItem find(String id, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            Object entry = entries[index(bit)];
+            if (entry instanceof Node) {
+                return ((Node) entry).find(id, hash, shift + BITS);
+            }
+            LayoutItem item = (LayoutItem) entry;
+            return item.getId().equals(id) ? item : null;
+        }
+
+        @Override
+        Node put(LayoutItem item, int hash, int shift, boolean[] added) {
+            int bit = bit(hash, shift);
+            int index = index(bit);
+
+            if ((bitmap & bit) == 0) {
+                Object[] copy = new Object[entries.length + 1];
+                System.arraycopy(entries, 0, copy, 0, index);
+                copy[index] = item;
+                System.arraycopy(entries, index, copy, index + 1, entries.length - index);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, copy);
+            }
+
+            Object entry = entries[index];
+            Object replacement;
+            if (entry instanceof Node) {
+                replacement = ((Node) entry).put(item, hash, shift + BITS, added);
+            } else {
+                LayoutItem existing = (LayoutItem) entry;
+                if (existing.getId().equals(item.getId())) {
+                    replacement = item;
+                } else {
+                    replacement = pair(existing, existing.getId().hashCode(), item, hash, shift + BITS);
+                    added[0] = true;
+                }
+            }
+            if (replacement == entry) {
+                return this;
+            }
+            Object[] copy = entries.clone();
+            copy[index] = replacement;
+            return new BitmapNode(bitmap, copy);
+        }
+
+        @Override
+        Node remove(String id, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = index(bit);
+            Object entry = entries[index];
+
+            Object replacement;
+            if (entry instanceof Node) {
+                Node child = (Node) entry;
+                Node newChild = child.remove(id, hash, shift + BITS);
+                if (newChild == child) {
+                    return this;
+                }
+                // Pull a lone remaining item up so the trie stays minimal
+                LayoutItem single = newChild == null ? null : newChild.singleItem();
+                replacement = single != null ? single : newChild;
+            } else if (((LayoutItem) entry).getId().equals(id)) {
+                replacement = null;
+            } else {
+                return this;
+            }
+
+            if (replacement != null) {
+                Object[] copy = entries.clone();
+                copy[index] = replacement;
+                return new BitmapNode(bitmap, copy);
+            }
+            if (entries.length == 1) {
+                return null;
+            }
+            Object[] copy = new Object[entries.length - 1];
+            System.arraycopy(entries, 0, copy, 0, index);
+            System.arraycopy(entries, index + 1, copy, index, entries.length - index - 1);
+            return new BitmapNode(bitmap & ~bit, copy);
+        }
+
+        @Override
+        LayoutItem singleItem() {
+            return entries.length == 1 && entries[0] instanceof LayoutItem ? (LayoutItem) entries[0] : null;
+        }
+
+        @Override
+        void forEach(Consumer<LayoutItem> action) {
+            for (Object entry : entries) {
+                if (entry instanceof Node) {
+                    ((Node) entry).forEach(action);
+                } else {
+                    action.accept((LayoutItem) entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Leaf bucket for items whose IDs have the same full hash code
+     */
+    private static final class CollisionNode extends Node {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int hash;
+        private final LayoutItem[] items;
+
+        CollisionNode(int hash, LayoutItem[] items) {
+            this.hash = hash;
+            this.items = items;
+        }
+
+        private int indexOf(String id) {
+            for (int i = 0; i < items.length; i++) {
+                if (items[i].getId().equals(id)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        LayoutItem find(String id, int hash, int shift) {
+            int index = hash == this.hash ? indexOf(id) : -1;
+            return index < 0 ? null : items[index];
+        }
+
+        @Override
+        Node put(LayoutItem item, int hash, int shift, boolean[] added) {
+            if (hash != this.hash) {
+                // Different hash that shares the prefix so far: split above this bucket
+                added[0] = true;
+                return pair(this, this.hash, item, hash, shift);
+            }
+            int index = indexOf(item.getId());
+            if (index >= 0) {
+                if (items[index] == item) {
+                    return this;
+                }
+                LayoutItem[] copy = items.clone();
+                copy[index] = item;
+                return new CollisionNode(hash, copy);
+            }
+            LayoutItem[] copy = Arrays.copyOf(items, items.length + 1);
+            copy[items.length] = item;
+            added[0] = true;
+            return new CollisionNode(hash, copy);
+        }
+
+        @Override
+        Node remove(String id, int hash, int shift) {
+            int index = hash == this.hash ? indexOf(id) : -1;
+            if (index < 0) {
+                return this;
+            }
+            if (items.length == 1) {
+                return null;
+            }
+            LayoutItem[] copy = new LayoutItem[items.length - 1];
+            System.arraycopy(items, 0, copy, 0, index);
+            System.arraycopy(items, index + 1, copy, index, items.length - index - 1);
+            return new CollisionNode(hash, copy);
+        }
+
+        @Override
+        LayoutItem singleItem() {
+            return items.length == 1 ? items[0] : null;
+        }
+
+        @Override
+        void forEach(Consumer<LayoutItem> action) {
+            for (LayoutItem item : items) {
+                action.accept(item);
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.dashboard;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Row span index backing {@link GridLayout} row range queries.
+ *
+ * Items are kept in a treap ordered by top row (ties broken by insertion
+ * sequence), where every node also records the largest bottom row in its
+ * subtree. A query skips every subtree that ends above the range and stops
+ * at the first item starting below it, so finding the k items that
+ * intersect a range of rows takes O(log n + k) expected time. Like
+ * {@link OccupancyIndex}, spans are remembered per item ID and updated
+ * incrementally on every put/remove.
+ */
+final class RowRangeIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final class Node implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        final String id;
+        final int top;
+        final int bottom;
+        final long sequence;
+        final int priority;
+
+        Node left;
+        Node right;
+
+        /**
+         * Largest bottom row (exclusive) in this subtree
+         */
+        int maxBottom;
+
+        Node(String id, int top, int bottom, long sequence) {
+            this.id = id;
+            this.top = top;
+            this.bottom = bottom;
+            this.sequence = sequence;
+            this.priority = mix(sequence);
+            this.maxBottom = bottom;
+        }
+
+        Node copy() {
+            Node copy = new Node(id, top, bottom, sequence);
+            copy.left = left != null ? left.copy() : null;
+            copy.right = right != null ? right.copy() : null;
+            copy.maxBottom = maxBottom;
+            return copy;
+        }
+
+        boolean before(int otherTop, long otherSequence) {
+            return top < otherTop || (top == otherTop && sequence < otherSequence);
+        }
+
+        void update() {
+            int max = bottom;
+            if (left != null) {
+                max = Math.max(max, left.maxBottom);
+            }
+            if (right != null) {
+                max = Math.max(max, right.maxBottom);
+            }
+            maxBottom = max;
+        }
+    }
+
+    private final Map<String, Node> nodes = new HashMap<>();
+    private Node root;
+    private long nextSequence;
+
+    /**
+     * Index an item, replacing any span previously recorded for its ID
+     */
+    void add(GridItemConfig item) {
+        remove(item.getId());
+        if (item.getH() <= 0) {
+            return;
+        }
+        Node node = new Node(item.getId(), item.getY(), item.getY() + item.getH(), nextSequence++);
+        nodes.put(node.id, node);
+        root = insert(root, node);
+    }
+
+    /**
+     * Remove the span recorded for an item ID, if any
+     */
+    void remove(String id) {
+        Node node = nodes.remove(id);
+        if (node != null) {
+            root = delete(root, node);
+        }
+    }
+
+    /**
+     * Drop all spans
+     */
+    void clear() {
+        nodes.clear();
+        root = null;
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Create an independent index with the same spans
+     */
+    RowRangeIndex copy() {
+        RowRangeIndex copy = new RowRangeIndex();
+        if (root != null) {
+            copy.root = root.copy();
+            copy.collect(copy.root);
+        }
+        copy.nextSequence = nextSequence;
+        return copy;
+    }
+
+    /**
+     * Pass the ID of every item that covers at least one row from
+     * {@code firstRow} to {@code lastRow} (both inclusive), ordered by top row
+     */
+    void query(int firstRow, int lastRow, Consumer<String> consumer) {
+        if (firstRow <= lastRow) {
+            query(root, firstRow, lastRow, consumer);
+        }
+    }
+
+    private static void query(Node node, int firstRow, int lastRow, Consumer<String> consumer) {
+        while (node != null && node.maxBottom > firstRow) {
+            query(node.left, firstRow, lastRow, consumer);
+            if (node.top > lastRow) {
+                return; // Everything further right starts even lower
+            }
+            if (node.bottom > firstRow) {
+                consumer.accept(node.id);
+            }
+            node = node.right;
+        }
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.priority > node.priority) {
+            split(node, added);
+            added.update();
+            return added;
+        }
+        if (added.before(node.top, node.sequence)) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * Split a subtree into the nodes ordered before and after the given
+     * node, which become its left and right subtrees
+     */
+    private static void split(Node node, Node at) {
+        if (node == null) {
+            at.left = null;
+            at.right = null;
+            return;
+        }
+        if (node.before(at.top, at.sequence)) {
+            split(node.right, at);
+            node.right = at.left;
+            node.update();
+            at.left = node;
+        } else {
+            split(node.left, at);
+            node.left = at.right;
+            node.update();
+            at.right = node;
+        }
+    }
+
+    private static Node delete(Node node, Node removed) {
+        if (node == removed) {
+            return merge(node.left, node.right);
+        }
+        if (removed.before(node.top, node.sequence)) {
+            node.left = delete(node.left, removed);
+        } else {
+            node.right = delete(node.right, removed);
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * Join two subtrees where every node of the first is ordered before the second
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private void collect(Node node) {
+        if (node != null) {
+            nodes.put(node.id, node);
+            collect(node.left);
+            collect(node.right);
+        }
+    }
+
+    /**
+     * Spread a sequence number into a well-mixed heap priority
+     */
+    private static int mix(long sequence) {
+        long z = sequence * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (int) (z ^ (z >>> 31));
+    }
+}
@@ -1,12 +1,22 @@
 package com.example.dashboard;
 
 import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.dom.DomEvent;
+import com.vaadin.flow.dom.Element;
+import com.vaadin.flow.internal.nodefeature.ElementListenerMap;
+import com.vaadin.flow.shared.Registration;
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -123,6 +133,7 @@ class DashboardGridTest {
     @Test
     @DisplayName("Should update item configuration")
     void testSetItemConfig() {
+        grid.setCompact(false);
         Button button = new Button("Test");
         grid.addItem("btn1", button, GridItemConfig.at("btn1", 0, 0, 4, 3));
         
@@ -136,6 +147,18 @@ class DashboardGridTest {
         assertEquals(4, retrieved.getH());
     }
     
+    @Test
+    @DisplayName("Should hold the compacted layout on the server")
+    void testSetItemConfigCompacts() {
+        grid.addItem("btn1", new Button(), GridItemConfig.at("btn1", 0, 0, 4, 3));
+        grid.addItem("btn2", new Button(), GridItemConfig.at("btn2", 0, 3, 4, 3));
+        
+        grid.setItemConfig("btn1", GridItemConfig.at("btn1", 5, 5, 6, 4));
+        
+        assertEquals(0, grid.getItemConfig("btn1").getY());
+        assertEquals(0, grid.getItemConfig("btn2").getY());
+    }
+    
     @Test
     @DisplayName("Should throw exception for ID mismatch in addItem")
     void testAddItemIdMismatch() {
@@ -189,6 +212,39 @@ class DashboardGridTest {
         assertEquals(0, grid.getItemIds().size());
     }
     
+    @Test
+    @DisplayName("Should remove several items and their slot wrappers")
+    void testRemoveItems() {
+        Button btn1 = new Button();
+        Button btn3 = new Button();
+        grid.addItem("btn1", btn1, 4, 3);
+        grid.addItem("btn2", new Button(), 4, 3);
+        grid.addItem("btn3", btn3, 4, 3);
+        assertEquals(3, grid.getElement().getChildCount());
+        
+        var removed = grid.removeItems(java.util.List.of("btn1", "btn3", "unknown"));
+        
+        assertEquals(java.util.List.of(btn1, btn3), removed);
+        assertEquals(java.util.Set.of("btn2"), grid.getItemIds());
+        assertEquals(1, grid.getElement().getChildCount());
+        assertEquals("item-btn2", grid.getElement().getChild(0).getAttribute("slot"));
+        
+        grid.clear();
+        assertEquals(0, grid.getElement().getChildCount());
+        assertEquals(0, grid.getLayout().size());
+    }
+    
+    @Test
+    @DisplayName("Should replace the wrapper when an ID is added again")
+    void testAddItemTwiceKeepsSingleWrapper() {
+        Button newer = new Button();
+        grid.addItem("btn1", new Button(), 4, 3);
+        grid.addItem("btn1", newer, 4, 3);
+        
+        assertEquals(1, grid.getElement().getChildCount());
+        assertEquals(newer, grid.getItemComponent("btn1"));
+    }
+    
     @Test
     @DisplayName("Should get layout copy")
     void testGetLayout() {
@@ -221,6 +277,117 @@ class DashboardGridTest {
         assertEquals(0, config.getY());
     }
     
+    @Test
+    @DisplayName("Should restore a saved layout in one revision regardless of the current order")
+    void testRestoreReversedLayout() {
+        grid.addItem("b", new Button(), GridItemConfig.at("b", 0, 0, 4, 3));
+        grid.addItem("a", new Button(), GridItemConfig.at("a", 0, 3, 4, 3));
+        long revision = grid.getSnapshot().getRevision();
+        
+        GridLayout saved = new GridLayout(12, 30);
+        saved.putItem(new GridItemConfig("a", 0, 0, 4, 3));
+        saved.putItem(new GridItemConfig("b", 0, 3, 4, 3));
+        grid.restoreLayout(saved);
+        
+        assertEquals(0, grid.getItemConfig("a").getY());
+        assertEquals(3, grid.getItemConfig("b").getY());
+        assertEquals(revision + 1, grid.getSnapshot().getRevision());
+    }
+    
+    @Test
+    @DisplayName("Should decode a shared layout once for all grids restoring it")
+    void testRestoreSharedLayout() {
+        GridLayout template = new GridLayout(12, 30);
+        template.putItem(new GridItemConfig("a", 4, 0, 4, 3));
+        String json = LayoutSerializer.toJson(template);
+        LayoutKey key = LayoutKey.of("shared", "template");
+        LayoutCache cache = new LayoutCache();
+        
+        grid.addItem("a", new Button(), GridItemConfig.at("a", 0, 0, 4, 3));
+        grid.restoreLayout(json, key, 7, cache);
+        DashboardGrid other = new DashboardGrid();
+        other.addItem("a", new Button(), GridItemConfig.at("a", 0, 0, 4, 3));
+        // Not parsed again: the cached revision is used even for different JSON
+        other.restoreLayout("not json", key, 7, cache);
+        
+        assertEquals(4, grid.getItemConfig("a").getX());
+        assertEquals(4, other.getItemConfig("a").getX());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(7, cache.peek(key).getRevision());
+    }
+    
+    @Test
+    @DisplayName("Should send a full snapshot on attach and patches afterwards")
+    void testDeltaSync() {
+        grid.addItem("btn1", new Button(), GridItemConfig.at("btn1", 0, 0, 4, 3));
+        grid.addItem("btn2", new Button(), GridItemConfig.at("btn2", 4, 0, 4, 3));
+        grid.addItem("btn3", new Button(), GridItemConfig.at("btn3", 8, 0, 4, 3));
+        
+        UI ui = new UI();
+        ui.add(grid);
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+        String snapshot = grid.getElement().getProperty("layoutData");
+        assertTrue(snapshot.contains("\"btn1\"") && snapshot.contains("\"btn3\""));
+        
+        grid.setItemConfig("btn2", GridItemConfig.at("btn2", 4, 0, 4, 5));
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+        
+        String patch = grid.getElement().getProperty("layoutPatch");
+        assertNotNull(patch);
+        assertTrue(patch.contains("\"btn2\""));
+        assertFalse(patch.contains("\"btn1\""));
+        assertEquals(snapshot, grid.getElement().getProperty("layoutData"));
+    }
+    
+    @Test
+    @DisplayName("Should defer client sync until the batch completes")
+    void testBatch() {
+        UI ui = new UI();
+        ui.add(grid);
+        grid.addItem("btn1", new Button(), GridItemConfig.at("btn1", 0, 0, 4, 3));
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+        String before = grid.getElement().getProperty("layoutData");
+        
+        grid.batch(g -> {
+            g.addItem("btn2", new Button(), 4, 3);
+            g.addItem("btn3", new Button(), 4, 3);
+            g.addItem("btn4", new Button(), GridItemConfig.at("btn4", 0, 9, 4, 3));
+            ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+            assertEquals(before, g.getElement().getProperty("layoutData"));
+        });
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+        
+        String after = grid.getElement().getProperty("layoutData");
+        assertNotEquals(before, after);
+        assertTrue(after.contains("\"btn4\""));
+        // Compaction ran once at the end of the batch
+        assertEquals(3, grid.getItemConfig("btn4").getY());
+    }
+    
+    @Test
+    @DisplayName("Should coalesce all changes of a round-trip into one sync")
+    void testSyncCoalescedPerRoundTrip() {
+        UI ui = new UI();
+        ui.add(grid);
+        for (int i = 0; i < 6; i++) {
+            grid.addItem("btn" + i, new Button(), GridItemConfig.at("btn" + i, (i % 3) * 4, 0, 4, 3));
+        }
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+        String snapshot = grid.getElement().getProperty("layoutData");
+        
+        grid.setItemConfig("btn3", GridItemConfig.at("btn3", 0, 3, 4, 4));
+        grid.setItemConfig("btn4", GridItemConfig.at("btn4", 4, 3, 4, 4));
+        assertNull(grid.getElement().getProperty("layoutPatch"));
+        
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+        
+        String patch = grid.getElement().getProperty("layoutPatch");
+        assertTrue(patch.contains("\"btn3\"") && patch.contains("\"btn4\""));
+        assertFalse(patch.contains("\"btn0\""));
+        assertEquals(snapshot, grid.getElement().getProperty("layoutData"));
+    }
+    
     @Test
     @DisplayName("Should update grid properties")
     void testGridProperties() {
@@ -277,4 +444,392 @@ class DashboardGridTest {
         assertFalse(grid.getItemConfig("item3").isDraggable());
         assertFalse(grid.getItemConfig("item3").isResizable());
     }
+    
+    @Test
+    @DisplayName("Should acknowledge stale and failing client events")
+    void testAcknowledgeSkippedEvents() {
+        UI ui = new UI();
+        ui.add(grid);
+        grid.addItem("a", new Button(), GridItemConfig.at("a", 0, 0, 4, 3));
+        
+        fireLayoutChanged("a", 0, 2, false, 5);
+        assertEquals(5, grid.getElement().getProperty("ackedRevision", 0.0));
+        
+        // Stale: skipped, but the latest revision received stays acknowledged
+        grid.getElement().setProperty("ackedRevision", 0);
+        fireLayoutChanged("a", 0, 1, false, 3);
+        assertEquals(2, grid.getItemConfig("a").getY());
+        assertEquals(5, grid.getElement().getProperty("ackedRevision", 0.0));
+        
+        // A failing listener must not leave the client waiting
+        grid.addLayoutChangeListener(event -> {
+            throw new IllegalStateException("Listener failed");
+        });
+        assertThrows(IllegalStateException.class, () -> fireLayoutChanged("a", 0, 4, false, 6));
+        assertEquals(6, grid.getElement().getProperty("ackedRevision", 0.0));
+    }
+    
+    @Test
+    @DisplayName("Should clamp client positions to the grid")
+    void testClampClientPositions() {
+        UI ui = new UI();
+        ui.add(grid);
+        grid.addItem("a", new Button(), GridItemConfig.at("a", 0, 0, 4, 3));
+        
+        fireLayoutChanged("a", 20, 50_000_000, false, 1);
+        GridItemConfig item = grid.getItemConfig("a");
+        assertEquals(8, item.getX());
+        assertEquals(DashboardGrid.MAX_CLIENT_ROWS - 3, item.getY());
+        
+        fireLayoutChanged("a", -5, -5, false, 2);
+        assertEquals(0, grid.getItemConfig("a").getX());
+        assertEquals(0, grid.getItemConfig("a").getY());
+    }
+    
+    @Test
+    @DisplayName("Should deliver client layout changes according to the intermediate event policy")
+    void testIntermediateEventPolicy() {
+        UI ui = new UI();
+        ui.add(grid);
+        grid.addItem("a", new Button(), GridItemConfig.at("a", 0, 0, 4, 3));
+        grid.addItem("b", new Button(), GridItemConfig.at("b", 4, 0, 4, 3));
+        List<LayoutChangeEvent> events = new ArrayList<>();
+        grid.addLayoutChangeListener(events::add);
+        
+        // Default: everything is delivered and acknowledged
+        assertEquals("acked", grid.getElement().getProperty("intermediateEvents"));
+        fireLayoutChanged("a", 0, 3, true, 1);
+        assertEquals(1, grid.getElement().getProperty("ackedRevision", 0.0));
+        fireLayoutChanged("a", 0, 4, false, 2);
+        assertEquals(2, events.size());
+        assertEquals(4, grid.getItemConfig("a").getY());
+        assertEquals(2, grid.getElement().getProperty("ackedRevision", 0.0));
+        
+        // None: intermediates are not even listened for, finals still arrive
+        grid.setIntermediateEventPolicy(IntermediateEventPolicy.none());
+        assertEquals("none", grid.getElement().getProperty("intermediateEvents"));
+        events.clear();
+        fireLayoutChanged("a", 0, 5, true, 3);
+        fireLayoutChanged("a", 0, 6, false, 4);
+        assertEquals(1, events.size());
+        assertTrue(events.get(0).isFinal());
+        
+        // Sampled: a burst of intermediates yields one event
+        grid.setIntermediateEventPolicy(IntermediateEventPolicy.sampled(1));
+        events.clear();
+        fireLayoutChanged("a", 0, 7, true, 5);
+        fireLayoutChanged("a", 0, 8, true, 6);
+        fireLayoutChanged("a", 0, 9, true, 7);
+        assertEquals(1, events.size());
+        assertEquals(9, grid.getItemConfig("a").getY());
+        
+        // Latest per item: one event per item at the end of the round-trip
+        grid.setIntermediateEventPolicy(IntermediateEventPolicy.latestPerItem());
+        events.clear();
+        fireLayoutChanged("a", 0, 10, true, 8);
+        fireLayoutChanged("b", 4, 10, true, 9);
+        fireLayoutChanged("a", 0, 11, true, 10);
+        assertTrue(events.isEmpty());
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+        assertEquals(2, events.size());
+        assertEquals("b", events.get(0).getAffectedItemId());
+        assertEquals(11, events.get(1).getSnapshot().getItem("a").getY());
+        
+        // ...unless the final event arrives in the same round-trip
+        events.clear();
+        fireLayoutChanged("a", 0, 12, true, 11);
+        fireLayoutChanged("a", 0, 13, false, 12);
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+        assertEquals(1, events.size());
+        assertTrue(events.get(0).isFinal());
+    }
+    
+    @Test
+    @DisplayName("Should only have intermediate events sent while a listener subscribes to them")
+    void testEventModeSubscription() {
+        UI ui = new UI();
+        ui.add(grid);
+        grid.addItem("a", new Button(), GridItemConfig.at("a", 0, 0, 4, 3));
+        List<LayoutChangeEvent> finals = new ArrayList<>();
+        List<LayoutChangeEvent> all = new ArrayList<>();
+        
+        // Final-only listeners keep intermediate events in the browser
+        grid.addLayoutChangeListener(finals::add, DashboardGrid.EventMode.FINAL_ONLY);
+        assertEquals("none", grid.getElement().getProperty("intermediateEvents"));
+        fireLayoutChanged("a", 0, 1, true, 1);
+        fireLayoutChanged("a", 0, 2, false, 2);
+        assertEquals(1, finals.size());
+        assertTrue(finals.get(0).isFinal());
+        
+        // The first listener for all events turns them on
+        Registration registration = grid.addLayoutChangeListener(all::add);
+        assertEquals("acked", grid.getElement().getProperty("intermediateEvents"));
+        fireLayoutChanged("a", 0, 3, true, 3);
+        fireLayoutChanged("a", 0, 4, false, 4);
+        assertEquals(2, all.size());
+        assertEquals(2, finals.size());
+        assertTrue(finals.get(1).isFinal());
+        
+        // Removing it, even twice, turns them off again
+        registration.remove();
+        registration.remove();
+        assertEquals("none", grid.getElement().getProperty("intermediateEvents"));
+        fireLayoutChanged("a", 0, 5, true, 5);
+        assertEquals(2, all.size());
+        assertEquals(2, finals.size());
+        assertEquals(4, grid.getItemConfig("a").getY());
+    }
+    
+    @Test
+    @DisplayName("Should release the client when the intermediate listener is removed with an event in flight")
+    void testListenerRemovedWithEventInFlight() {
+        UI ui = new UI();
+        ui.add(grid);
+        grid.addItem("a", new Button(), GridItemConfig.at("a", 0, 0, 4, 3));
+        Registration registration = grid.addLayoutChangeListener(event -> { });
+        fireLayoutChanged("a", 0, 1, true, 1);
+        assertEquals(1, grid.getElement().getProperty("ackedRevision", 0.0));
+        double epoch = grid.getElement().getProperty("intermediateEpoch", 0.0);
+        
+        // The client sent revision 2 before learning that nobody listens
+        registration.remove();
+        fireLayoutChanged("a", 0, 2, true, 2);
+        assertEquals("none", grid.getElement().getProperty("intermediateEvents"));
+        assertEquals(epoch + 1, grid.getElement().getProperty("intermediateEpoch", 0.0));
+        assertEquals(1, grid.getElement().getProperty("ackedRevision", 0.0));
+        
+        // It stops waiting for revision 2, and its next event goes through
+        fireLayoutChanged("a", 0, 3, false, 3);
+        assertEquals(3, grid.getItemConfig("a").getY());
+        assertEquals(3, grid.getElement().getProperty("ackedRevision", 0.0));
+    }
+    
+    @Test
+    @DisplayName("Should undo a whole drag and send only the reverted item")
+    void testUndoRedo() {
+        UI ui = new UI();
+        ui.add(grid);
+        grid.addItem("a", new Button(), GridItemConfig.at("a", 0, 0, 4, 3));
+        grid.addItem("b", new Button(), GridItemConfig.at("b", 4, 0, 4, 3));
+        grid.addItem("c", new Button(), GridItemConfig.at("c", 0, 3, 4, 3));
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+        assertFalse(grid.canUndo());
+        
+        fireLayoutChanged("a", 4, 3, true, 1);
+        fireLayoutChanged("a", 8, 0, false, 2);
+        long dropped = grid.getSnapshot().getRevision();
+        assertTrue(grid.canUndo());
+        
+        assertTrue(grid.undo());
+        assertEquals(0, grid.getItemConfig("a").getX());
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+        String patch = grid.getElement().getProperty("layoutPatch");
+        assertTrue(patch.contains("\"a\""));
+        assertFalse(patch.contains("\"b\""));
+        assertFalse(patch.contains("\"c\""));
+        
+        assertTrue(grid.redo());
+        assertEquals(8, grid.getItemConfig("a").getX());
+        assertTrue(grid.undo());
+        assertTrue(grid.revertTo(dropped));
+        assertEquals(8, grid.getItemConfig("a").getX());
+        
+        // Adding or removing items starts the history afresh
+        grid.removeItem("b");
+        assertFalse(grid.canUndo());
+        assertFalse(grid.undo());
+    }
+    
+    @Test
+    @DisplayName("Should keep the history settings of a layout passed in")
+    void testGivenLayoutHistory() {
+        GridLayout withHistory = new GridLayout(12, 30);
+        withHistory.setHistoryLimit(3);
+        withHistory.putItem(new GridItemConfig("a", 0, 0, 4, 3));
+        withHistory.checkpoint();
+        withHistory.putItem(new GridItemConfig("a", 4, 0, 4, 3));
+        withHistory.checkpoint();
+        
+        DashboardGrid given = new DashboardGrid(withHistory);
+        assertEquals(3, given.getHistoryLimit());
+        assertTrue(given.canUndo());
+        
+        assertEquals(0, new DashboardGrid(new GridLayout(12, 30)).getHistoryLimit());
+        assertEquals(DashboardGrid.DEFAULT_HISTORY_LIMIT, grid.getHistoryLimit());
+    }
+    
+    @Test
+    @DisplayName("Should acknowledge client edits and let unseen server changes win")
+    void testRevisionAcknowledgement() {
+        UI ui = new UI();
+        ui.add(grid);
+        grid.setCompact(false);
+        grid.addItem("a", new Button(), GridItemConfig.at("a", 0, 0, 4, 3));
+        grid.addItem("b", new Button(), GridItemConfig.at("b", 4, 0, 4, 3));
+        grid.addItem("c", new Button(), GridItemConfig.at("c", 8, 0, 4, 3));
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+        
+        // A drag by an up-to-date client is acknowledged, not echoed back
+        fireLayoutChanged("a", 0, 3, true, 1);
+        fireLayoutChanged("a", 0, 6, false, 2);
+        long acknowledged = appliedRevision();
+        assertEquals(grid.getSnapshot().getRevision(), acknowledged);
+        
+        grid.setItemConfig("b", GridItemConfig.at("b", 4, 6, 4, 3));
+        ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+        String patch = grid.getElement().getProperty("layoutPatch");
+        assertTrue(patch.contains("\"b\""));
+        assertFalse(patch.contains("\"a\""));
+        
+        // A client that has not seen the patch yet loses on b, keeps its edit of c
+        fireLayoutChanged("b", 4, 9, false, 3, acknowledged);
+        assertEquals(6, grid.getItemConfig("b").getY());
+        fireLayoutChanged("c", 8, 9, false, 4, acknowledged);
+        assertEquals(9, grid.getItemConfig("c").getY());
+        assertEquals(acknowledged, (long) grid.getElement().getProperty("revision", -1.0));
+        
+        // Once the patch is applied, the client's edits go through again
+        fireLayoutChanged("b", 4, 12, false, 5);
+        assertEquals(12, grid.getItemConfig("b").getY());
+    }
+    
+    @Test
+    @DisplayName("Should attach only item content near the visible rows when virtualized")
+    void testVirtualization() {
+        UI ui = new UI();
+        ui.add(grid);
+        List<Button> buttons = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Button button = new Button();
+            buttons.add(button);
+            grid.addItem("item-" + i, button, GridItemConfig.at("item-" + i, 0, i * 3, 4, 3));
+        }
+        assertNotNull(buttons.get(39).getElement().getParent());
+        
+        grid.setOverscanRows(3);
+        grid.setVirtualized(true);
+        
+        // Only the top of the grid is assumed visible before the client reports
+        assertNotNull(buttons.get(1).getElement().getParent());
+        assertNull(buttons.get(2).getElement().getParent());
+        Element placeholder = grid.getElement().getChild(2);
+        assertTrue(placeholder.hasAttribute("placeholder"));
+        assertEquals(0, placeholder.getChildCount());
+        
+        fireVisibleRows(60, 80);
+        assertNull(buttons.get(0).getElement().getParent());
+        assertNull(buttons.get(18).getElement().getParent());
+        assertNotNull(buttons.get(19).getElement().getParent());
+        assertNotNull(buttons.get(27).getElement().getParent());
+        assertNull(buttons.get(28).getElement().getParent());
+        assertEquals(40, grid.getElement().getChildCount());
+        
+        // An item moved into view gets its content back
+        fireLayoutChanged("item-0", 4, 70, false, 1);
+        assertNotNull(buttons.get(0).getElement().getParent());
+        
+        Button replacement = new Button();
+        grid.replaceItem("item-5", replacement);
+        assertNull(replacement.getElement().getParent());
+        assertSame(replacement, grid.getItemComponent("item-5"));
+        
+        grid.setVirtualized(false);
+        assertNotNull(replacement.getElement().getParent());
+        assertFalse(grid.getElement().getChild(2).hasAttribute("placeholder"));
+    }
+    
+    @Test
+    @DisplayName("Should create lazy item content only when it comes into view or is requested")
+    void testLazyContent() {
+        UI ui = new UI();
+        ui.add(grid);
+        grid.setVirtualized(true);
+        grid.setOverscanRows(0);
+        AtomicInteger created = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            grid.addItem("item-" + i, () -> {
+                created.incrementAndGet();
+                return new Button();
+            }, GridItemConfig.at("item-" + i, 0, i * 3, 4, 3));
+        }
+        
+        assertEquals(1, created.get());
+        assertEquals(10, grid.getItemIds().size());
+        assertTrue(grid.hasItem("item-9"));
+        assertTrue(grid.getElement().getChild(9).hasAttribute("placeholder"));
+        
+        fireVisibleRows(6, 8);
+        assertEquals(2, created.get());
+        assertEquals(1, grid.getElement().getChild(2).getChildCount());
+        
+        // Requested content is created, but stays detached while out of view
+        Component requested = grid.getItemComponent("item-9");
+        assertNotNull(requested);
+        assertSame(requested, grid.getItemComponent("item-9"));
+        assertEquals(3, created.get());
+        assertNull(requested.getElement().getParent());
+        
+        // Never created content is dropped without being created
+        assertNull(grid.removeItem("item-5"));
+        assertFalse(grid.hasItem("item-5"));
+        assertEquals(9, grid.getElement().getChildCount());
+        grid.clear();
+        assertEquals(3, created.get());
+        assertTrue(grid.getItemIds().isEmpty());
+    }
+    
+    /**
+     * Server revision the client holds after applying the last snapshot,
+     * acknowledgement or patch
+     */
+    private long appliedRevision() {
+        long revision = (long) grid.getElement().getProperty("revision", -1.0);
+        if (grid.getElement().getPropertyRaw("layoutPatch") instanceof JsonObject patch) {
+            revision = Math.max(revision, (long) patch.getNumber("revision"));
+        }
+        return revision;
+    }
+    
+    private void fireVisibleRows(int firstRow, int lastRow) {
+        JsonObject data = Json.createObject();
+        data.put("event.detail.firstRow", firstRow);
+        data.put("event.detail.lastRow", lastRow);
+        grid.getElement().getNode().getFeature(ElementListenerMap.class)
+                .fireEvent(new DomEvent(grid.getElement(), "visible-rows-changed", data));
+    }
+    
+    /**
+     * Simulate a layout-changed event from the client, moving one item
+     */
+    private void fireLayoutChanged(String id, int x, int y, boolean dragging, long revision) {
+        fireLayoutChanged(id, x, y, dragging, revision, appliedRevision());
+    }
+    
+    /**
+     * Same, for a client that had applied the given server revision
+     */
+    private void fireLayoutChanged(String id, int x, int y, boolean dragging, long revision, long serverRevision) {
+        GridItemConfig current = grid.getItemConfig(id);
+        JsonObject data = Json.createObject();
+        JsonObject item = Json.createObject();
+        item.put("i", id);
+        item.put("x", x);
+        item.put("y", y);
+        item.put("w", current.getW());
+        item.put("h", current.getH());
+        JsonArray items = Json.createArray();
+        items.set(0, item);
+        data.put("event.detail.items", items);
+        data.put("event.detail.itemId", id);
+        data.put("event.detail.reason", "drag");
+        data.put("event.detail.isDragging", dragging);
+        data.put("event.detail.isResizing", false);
+        data.put("event.detail.revision", revision);
+        data.put("event.detail.serverRevision", serverRevision);
+        // The client evaluates listener filters and reports the results as event data
+        data.put(DashboardGrid.INTERMEDIATE_FILTER, dragging);
+        data.put(DashboardGrid.FINAL_FILTER, !dragging);
+        grid.getElement().getNode().getFeature(ElementListenerMap.class)
+                .fireEvent(new DomEvent(grid.getElement(), "layout-changed", data));
+    }
 }
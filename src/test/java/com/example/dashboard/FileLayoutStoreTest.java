@@ -0,0 +1,160 @@
+package com.example.dashboard;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for FileLayoutStore
+ */
+@DisplayName("FileLayoutStore Tests")
+class FileLayoutStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private static LayoutSnapshot layoutWith(int items, int x) {
+        GridLayout layout = new GridLayout(12, 30);
+        layout.setCompact(false);
+        for (int i = 0; i < items; i++) {
+            GridItemConfig item = new GridItemConfig("item-" + i, x, i * 2, 3, 2);
+            item.setMinW(1);
+            layout.putItem(item);
+        }
+        return layout.getSnapshot();
+    }
+
+    @Test
+    @DisplayName("Should save, load, list and delete layouts across reopen")
+    void testRoundTrip() throws IOException {
+        LayoutKey main = LayoutKey.of("alice", "main");
+        LayoutKey sales = LayoutKey.of("alice", "sales");
+        LayoutKey bob = LayoutKey.of("bob", "main");
+
+        try (FileLayoutStore store = new FileLayoutStore(directory)) {
+            assertNull(store.load(main));
+
+            store.save(main, layoutWith(3, 1));
+            store.save(sales, layoutWith(1, 0));
+            store.save(bob, layoutWith(2, 0));
+            store.save(main, layoutWith(4, 5));
+
+            GridLayout loaded = store.load(main);
+            assertEquals(4, loaded.size());
+            assertEquals(5, loaded.getItem("item-3").getX());
+            assertEquals(Integer.valueOf(1), loaded.getItem("item-3").getMinW());
+            assertEquals(List.of(main, sales), store.list("alice"));
+            assertFalse(store.delete(LayoutKey.of("carol", "main")));
+            assertTrue(store.delete(sales));
+        }
+
+        try (FileLayoutStore store = new FileLayoutStore(directory)) {
+            assertEquals(List.of(main), store.list("alice"));
+            assertEquals(4, store.load(main).size());
+            assertEquals(2, store.load(bob).size());
+            assertNull(store.load(sales));
+        }
+    }
+
+    @Test
+    @DisplayName("Should compact overwritten records and keep the latest layouts")
+    void testCompaction() throws IOException {
+        LayoutKey key = LayoutKey.of("alice", "main");
+
+        try (FileLayoutStore store = new FileLayoutStore(directory)) {
+            for (int i = 0; i < 50; i++) {
+                store.save(key, layoutWith(20, i % 9));
+            }
+            store.save(LayoutKey.of("alice", "other"), layoutWith(1, 0));
+            long before = store.getLogLength();
+
+            store.compact();
+
+            assertTrue(store.getLogLength() * 10 < before);
+            assertEquals(Files.size(directory.resolve(FileLayoutStore.LOG_FILE)), store.getLogLength());
+            assertEquals(49 % 9, store.load(key).getItem("item-0").getX());
+
+            store.save(key, layoutWith(2, 7));
+        }
+
+        try (FileLayoutStore store = new FileLayoutStore(directory)) {
+            assertEquals(7, store.load(key).getItem("item-1").getX());
+            assertEquals(2, store.list("alice").size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should rebuild the index after a crash and drop a torn last record")
+    void testRecovery() throws IOException {
+        LayoutKey main = LayoutKey.of("alice", "main");
+        LayoutKey other = LayoutKey.of("alice", "other");
+
+        try (FileLayoutStore store = new FileLayoutStore(directory)) {
+            store.save(main, layoutWith(2, 3));
+            store.save(other, layoutWith(1, 0));
+            store.delete(other);
+        }
+        long cleanLength = Files.size(directory.resolve(FileLayoutStore.LOG_FILE));
+
+        // Simulate a crash: index left dirty and half a record appended to the log
+        try (RandomAccessFile index = new RandomAccessFile(directory.resolve(FileLayoutStore.INDEX_FILE).toFile(), "rw");
+             RandomAccessFile log = new RandomAccessFile(directory.resolve(FileLayoutStore.LOG_FILE).toFile(), "rw")) {
+            index.seek(4);
+            index.writeInt(0);
+            log.seek(log.length());
+            log.writeInt(500);
+            log.write(new byte[] {1, 2, 3});
+        }
+
+        try (FileLayoutStore store = new FileLayoutStore(directory)) {
+            assertEquals(cleanLength, store.getLogLength());
+            assertEquals(3, store.load(main).getItem("item-1").getX());
+            assertNull(store.load(other));
+            assertEquals(List.of(main), store.list("alice"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should grow the index for many keys")
+    void testManyKeys() throws IOException {
+        try (FileLayoutStore store = new FileLayoutStore(directory)) {
+            for (int i = 0; i < 300; i++) {
+                store.save(LayoutKey.of("user-" + (i % 3), "dash-" + i), layoutWith(1, i % 12));
+            }
+            for (int i = 0; i < 300; i += 2) {
+                store.delete(LayoutKey.of("user-" + (i % 3), "dash-" + i));
+            }
+        }
+
+        try (FileLayoutStore store = new FileLayoutStore(directory)) {
+            assertEquals(50, store.list("user-1").size());
+            assertEquals(11 % 12, store.load(LayoutKey.of("user-2", "dash-11")).getItem("item-0").getX());
+            assertNull(store.load(LayoutKey.of("user-0", "dash-12")));
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse a second store on a directory until the first is closed")
+    void testDirectoryLock() throws IOException {
+        LayoutKey main = LayoutKey.of("alice", "main");
+
+        try (FileLayoutStore store = new FileLayoutStore(directory)) {
+            store.save(main, layoutWith(1, 4));
+            assertThrows(IOException.class, () -> new FileLayoutStore(directory));
+            // The failed open must leave the first store intact
+            assertEquals(4, store.load(main).getItem("item-0").getX());
+        }
+
+        try (FileLayoutStore store = new FileLayoutStore(directory)) {
+            assertEquals(4, store.load(main).getItem("item-0").getX());
+        }
+    }
+}
@@ -3,6 +3,10 @@ package com.example.dashboard;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -160,7 +164,7 @@ class GridLayoutTest {
         layout.putItem(new GridItemConfig("item1", 0, 0, 4, 3));
         layout.putItem(new GridItemConfig("item2", 4, 0, 4, 3));
         
-        var newItems = java.util.List.of(
+        var newItems = List.of(
             new GridItemConfig("item3", 0, 0, 4, 3),
             new GridItemConfig("item4", 4, 0, 4, 3)
         );
@@ -190,6 +194,231 @@ class GridLayoutTest {
         assertTrue(nextPos.getX() >= 4 || nextPos.getY() >= 3);
     }
     
+    @Test
+    @DisplayName("Should place new item in first free slot in reading order")
+    void testFindNextAvailablePositionFillsGap() {
+        GridLayout layout = new GridLayout();
+        layout.putItem(new GridItemConfig("item1", 0, 0, 4, 3));
+        layout.putItem(new GridItemConfig("item2", 8, 0, 4, 3));
+        
+        GridItemConfig gap = layout.findNextAvailablePosition("item3", 4, 3);
+        assertEquals(4, gap.getX());
+        assertEquals(0, gap.getY());
+        
+        GridItemConfig below = layout.findNextAvailablePosition("item3", 6, 2);
+        assertEquals(0, below.getX());
+        assertEquals(3, below.getY());
+    }
+    
+    @Test
+    @DisplayName("Should reuse space freed by removed and moved items")
+    void testFindNextAvailablePositionAfterRemoval() {
+        GridLayout layout = new GridLayout();
+        layout.setCompact(false);
+        layout.putItem(new GridItemConfig("item1", 0, 0, 12, 2));
+        layout.putItem(new GridItemConfig("item2", 0, 2, 6, 2));
+        
+        assertEquals(4, layout.findNextAvailablePosition("new", 12, 1).getY());
+        
+        layout.removeItem("item1");
+        assertEquals(0, layout.findNextAvailablePosition("new", 12, 2).getY());
+        
+        layout.putItem(new GridItemConfig("item2", 6, 0, 6, 2));
+        GridItemConfig slot = layout.findNextAvailablePosition("new", 6, 4);
+        assertEquals(0, slot.getX());
+        assertEquals(0, slot.getY());
+        assertFalse(layout.isAreaFree(6, 0, 1, 1));
+        assertTrue(layout.isAreaFree(6, 2, 6, 10));
+    }
+    
+    @Test
+    @DisplayName("Should place items wider than the grid below all items")
+    void testFindNextAvailablePositionTooWide() {
+        GridLayout layout = new GridLayout(4, 30);
+        layout.putItem(new GridItemConfig("item1", 0, 0, 2, 5));
+        
+        GridItemConfig wide = layout.findNextAvailablePosition("wide", 6, 1);
+        assertEquals(0, wide.getX());
+        assertEquals(5, wide.getY());
+    }
+    
+    @Test
+    @DisplayName("Should index items far down the grid without allocating the rows above")
+    void testOccupancyOfDistantRows() {
+        GridLayout layout = new GridLayout();
+        layout.setCompact(false);
+        layout.putItem(new GridItemConfig("far", 0, 50_000_000, 12, 2));
+        layout.putItem(new GridItemConfig("edge", 0, Integer.MAX_VALUE - 1, 12, 5));
+        
+        GridItemConfig slot = layout.findNextAvailablePosition("new", 12, 2);
+        assertEquals(0, slot.getY());
+        assertFalse(layout.isAreaFree(0, 50_000_001, 1, 1));
+        assertTrue(layout.isAreaFree(0, 50_000_002, 12, 1000));
+        
+        layout.removeItem("far");
+        assertTrue(layout.isAreaFree(0, 50_000_000, 12, 2));
+    }
+    
+    @Test
+    @DisplayName("Should re-index occupancy when column count changes")
+    void testFindNextAvailablePositionAfterColumnChange() {
+        GridLayout layout = new GridLayout();
+        layout.putItem(new GridItemConfig("item1", 0, 0, 6, 2));
+        assertEquals(6, layout.findNextAvailablePosition("new", 6, 2).getX());
+        
+        layout.setColumns(6);
+        GridItemConfig slot = layout.findNextAvailablePosition("new", 6, 2);
+        assertEquals(0, slot.getX());
+        assertEquals(2, slot.getY());
+    }
+    
+    @Test
+    @DisplayName("Should compact items vertically on put and remove")
+    void testVerticalCompaction() {
+        GridLayout layout = new GridLayout();
+        layout.putItem(new GridItemConfig("item1", 0, 0, 6, 2));
+        layout.putItem(new GridItemConfig("item2", 0, 10, 4, 3));
+        layout.putItem(new GridItemConfig("item3", 6, 7, 6, 2));
+        
+        assertEquals(2, layout.getItem("item2").getY());
+        assertEquals(0, layout.getItem("item3").getY());
+        
+        layout.removeItem("item1");
+        assertEquals(0, layout.getItem("item2").getY());
+        assertEquals(0, layout.getItem("item2").getX());
+    }
+    
+    @Test
+    @DisplayName("Should not move static items and compact around them")
+    void testCompactionHonorsStaticItems() {
+        GridLayout layout = new GridLayout();
+        layout.putItem(new GridItemConfig("fixed", 0, 2, 12, 2).asStatic());
+        layout.putItem(new GridItemConfig("small", 0, 1, 4, 1));
+        layout.putItem(new GridItemConfig("tall", 4, 0, 4, 3));
+        layout.putItem(new GridItemConfig("below", 8, 9, 4, 1));
+        
+        assertEquals(2, layout.getItem("fixed").getY());
+        // 'small' fits above the static item, 'tall' does not and is pushed below it
+        assertEquals(0, layout.getItem("small").getY());
+        assertEquals(4, layout.getItem("tall").getY());
+        // Items below a static item cannot move past it
+        assertEquals(4, layout.getItem("below").getY());
+    }
+    
+    @Test
+    @DisplayName("Should compact items horizontally")
+    void testHorizontalCompaction() {
+        GridLayout layout = new GridLayout();
+        layout.setCompactType("horizontal");
+        layout.putItem(new GridItemConfig("item1", 3, 0, 4, 2));
+        layout.putItem(new GridItemConfig("item2", 9, 1, 3, 2));
+        layout.putItem(new GridItemConfig("item3", 8, 5, 2, 2));
+        
+        assertEquals(0, layout.getItem("item1").getX());
+        assertEquals(4, layout.getItem("item2").getX());
+        assertEquals(1, layout.getItem("item2").getY());
+        assertEquals(0, layout.getItem("item3").getX());
+    }
+    
+    @Test
+    @DisplayName("Should not compact when compaction is disabled")
+    void testCompactionDisabled() {
+        GridLayout layout = new GridLayout();
+        layout.setCompact(false);
+        layout.putItem(new GridItemConfig("item1", 2, 5, 4, 2));
+        
+        assertEquals(2, layout.getItem("item1").getX());
+        assertEquals(5, layout.getItem("item1").getY());
+        
+        layout.setCompact(true);
+        assertEquals(0, layout.getItem("item1").getY());
+    }
+    
+    @Test
+    @DisplayName("Should apply client-resolved items in a single revision")
+    void testUpdateResolvedItems() {
+        GridLayout layout = new GridLayout();
+        layout.putItem(new GridItemConfig("item1", 0, 0, 4, 3));
+        layout.putItem(new GridItemConfig("item2", 4, 0, 4, 3));
+        long revision = layout.getRevision();
+        
+        int changed = layout.updateResolvedItems(List.of(
+            new GridItemConfig("item1", 0, 5, 4, 3),
+            new GridItemConfig("item2", 4, 0, 4, 3),
+            new GridItemConfig("unknown", 0, 0, 1, 1)
+        ));
+        
+        assertEquals(1, changed);
+        assertEquals(revision + 1, layout.getRevision());
+        // Client positions are kept as reported, not compacted again
+        assertEquals(5, layout.getItem("item1").getY());
+        assertFalse(layout.hasItem("unknown"));
+        
+        assertEquals(0, layout.updateResolvedItems(List.of(
+            new GridItemConfig("item2", 4, 0, 4, 3))));
+        assertEquals(revision + 1, layout.getRevision());
+    }
+    
+    @Test
+    @DisplayName("Should report items changed since a revision")
+    void testChangesSince() {
+        GridLayout layout = new GridLayout();
+        layout.setCompact(false);
+        layout.putItem(new GridItemConfig("item1", 0, 0, 4, 3));
+        layout.putItem(new GridItemConfig("item2", 4, 0, 4, 3));
+        long base = layout.getRevision();
+        
+        layout.putItem(new GridItemConfig("item1", 0, 3, 4, 3));
+        layout.putItem(new GridItemConfig("item3", 8, 0, 4, 3));
+        layout.removeItem("item2");
+        
+        LayoutChanges changes = layout.changesSince(base);
+        assertNotNull(changes);
+        assertEquals(base, changes.getBaseRevision());
+        assertEquals(layout.getRevision(), changes.getRevision());
+        assertEquals(List.of("item1", "item3"),
+            changes.getUpdated().stream().map(GridItemConfig::getId).toList());
+        assertEquals(List.of("item2"), changes.getRemoved());
+        
+        assertTrue(layout.changesSince(layout.getRevision()).isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Should include items moved by compaction in changes")
+    void testChangesSinceIncludesCompactedItems() {
+        GridLayout layout = new GridLayout();
+        layout.putItem(new GridItemConfig("item1", 0, 0, 4, 3));
+        layout.putItem(new GridItemConfig("item2", 0, 3, 4, 3));
+        long base = layout.getRevision();
+        
+        layout.removeItem("item1");
+        
+        LayoutChanges changes = layout.changesSince(base);
+        assertEquals(1, changes.getUpdated().size());
+        assertEquals(0, changes.getUpdated().get(0).getY());
+        assertEquals(List.of("item1"), changes.getRemoved());
+    }
+    
+    @Test
+    @DisplayName("Should require a full snapshot when change history is unavailable")
+    void testChangesSinceUnavailable() {
+        GridLayout layout = new GridLayout();
+        layout.putItem(new GridItemConfig("item1", 0, 0, 4, 3));
+        long base = layout.getRevision();
+        layout.removeItem("item1");
+        
+        assertNull(layout.changesSince(layout.getRevision() + 1));
+        
+        layout.discardChangesUpTo(layout.getRevision());
+        assertNull(layout.changesSince(base));
+        assertNotNull(layout.changesSince(layout.getRevision()));
+        
+        layout.putItem(new GridItemConfig("item2", 0, 0, 4, 3));
+        long beforeClear = layout.getRevision();
+        layout.clear();
+        assertNull(layout.changesSince(beforeClear));
+    }
+    
     @Test
     @DisplayName("Should create deep copy")
     void testCopy() {
@@ -256,4 +485,294 @@ class GridLayoutTest {
             layout.putItem(item);
         });
     }
+    
+    @Test
+    @DisplayName("Should publish immutable snapshots that share unchanged items")
+    void testSnapshots() {
+        GridLayout layout = new GridLayout();
+        layout.setCompact(false);
+        layout.putItem(GridItemConfig.at("a", 0, 0, 4, 3));
+        layout.putItem(GridItemConfig.at("b", 4, 0, 4, 3));
+        layout.putItem(GridItemConfig.at("c", 8, 0, 4, 3));
+        
+        LayoutSnapshot first = layout.getSnapshot();
+        assertSame(first, layout.getSnapshot());
+        assertEquals(layout.getRevision(), first.getRevision());
+        assertEquals(List.of("a", "b", "c"), new ArrayList<>(first.getItemIds()));
+        
+        layout.putItem(GridItemConfig.at("b", 4, 5, 4, 3));
+        layout.removeItem("c");
+        layout.putItem(GridItemConfig.at("d", 0, 9, 2, 2));
+        LayoutSnapshot second = layout.getSnapshot();
+        
+        // The earlier snapshot is unaffected
+        assertEquals(3, first.size());
+        assertEquals(0, first.getItem("b").getY());
+        assertTrue(first.hasItem("c"));
+        
+        assertEquals(List.of("a", "b", "d"), new ArrayList<>(second.getItemIds()));
+        assertEquals(5, second.getItem("b").getY());
+        assertFalse(second.hasItem("c"));
+        assertSame(first.getItem("a"), second.getItem("a"));
+        
+        // Re-adding an item moves it to the end, as in getItems()
+        layout.removeItem("a");
+        layout.putItem(GridItemConfig.at("a", 0, 0, 4, 3));
+        assertEquals(List.of("b", "d", "a"), new ArrayList<>(layout.getSnapshot().getItemIds()));
+        
+        layout.clear();
+        assertEquals(0, layout.getSnapshot().size());
+        assertEquals(3, second.size());
+    }
+    
+    @Test
+    @DisplayName("Should convert a snapshot back to an equal mutable layout")
+    void testSnapshotToGridLayout() {
+        GridLayout layout = new GridLayout(16, 40);
+        layout.setCompactType("horizontal");
+        GridItemConfig item = GridItemConfig.at("a", 2, 0, 4, 3);
+        item.setMinW(2);
+        item.setStatic(true);
+        layout.putItem(item);
+        
+        LayoutSnapshot snapshot = layout.getSnapshot();
+        GridLayout restored = snapshot.toGridLayout();
+        
+        assertEquals(layout.getRevision(), restored.getRevision());
+        assertEquals(16, restored.getColumns());
+        assertEquals(40, restored.getRowHeight());
+        assertEquals("horizontal", restored.getCompactType());
+        assertEquals(item, restored.getItem("a"));
+        
+        // Mutating the restored copy does not leak into the snapshot
+        restored.getItem("a").setX(9);
+        assertEquals(2, snapshot.getItem("a").getX());
+        assertEquals(item, snapshot.getItem("a").toConfig());
+    }
+    
+    @Test
+    @DisplayName("Should undo and redo item changes between checkpoints")
+    void testHistory() {
+        GridLayout layout = new GridLayout(12, 30);
+        layout.setCompact(false);
+        layout.putItem(GridItemConfig.at("a", 0, 0, 2, 2));
+        layout.putItem(GridItemConfig.at("b", 2, 0, 2, 2));
+        layout.setHistoryLimit(100);
+        assertFalse(layout.checkpoint());
+        long start = layout.getRevision();
+        
+        layout.putItem(GridItemConfig.at("a", 6, 0, 2, 2));
+        layout.putItem(GridItemConfig.at("a", 8, 0, 2, 2));
+        layout.checkpoint();
+        long moved = layout.getRevision();
+        
+        layout.removeItem("b");
+        layout.putItem(GridItemConfig.at("c", 0, 4, 2, 2));
+        
+        assertTrue(layout.canUndo());
+        assertFalse(layout.canRedo());
+        
+        // Uncheckpointed changes are undone first
+        assertTrue(layout.undo());
+        assertTrue(layout.hasItem("b"));
+        assertFalse(layout.hasItem("c"));
+        assertEquals(8, layout.getItem("a").getX());
+        
+        // Only the reverted item is part of the new revision
+        long beforeUndo = layout.getRevision();
+        assertTrue(layout.undo());
+        assertEquals(0, layout.getItem("a").getX());
+        LayoutChanges changes = layout.changesSince(beforeUndo);
+        assertEquals(1, changes.getUpdated().size());
+        assertEquals("a", changes.getUpdated().get(0).getId());
+        assertFalse(layout.undo());
+        
+        assertTrue(layout.redo());
+        assertEquals(8, layout.getItem("a").getX());
+        assertTrue(layout.revertTo(start));
+        assertEquals(0, layout.getItem("a").getX());
+        assertTrue(layout.revertTo(moved));
+        assertEquals(8, layout.getItem("a").getX());
+        assertFalse(layout.revertTo(-5));
+        
+        // A new change drops the redo steps
+        assertTrue(layout.canRedo());
+        layout.putItem(GridItemConfig.at("b", 4, 4, 2, 2));
+        assertFalse(layout.redo());
+        assertTrue(layout.undo());
+        assertEquals(2, layout.getItem("b").getX());
+    }
+    
+    @Test
+    @DisplayName("Should drop the oldest history steps beyond the limit")
+    void testHistoryLimit() {
+        GridLayout layout = new GridLayout(12, 30);
+        layout.setCompact(false);
+        layout.putItem(GridItemConfig.at("a", 0, 0, 1, 1));
+        layout.putItem(GridItemConfig.at("b", 1, 0, 1, 1));
+        layout.setHistoryLimit(3);
+        
+        for (int x = 2; x < 6; x++) {
+            layout.putItem(GridItemConfig.at("a", x, 0, 1, 1));
+            layout.putItem(GridItemConfig.at("b", x + 6, 0, 1, 1));
+            layout.checkpoint();
+        }
+        
+        assertTrue(layout.undo());
+        assertEquals(4, layout.getItem("a").getX());
+        assertFalse(layout.undo());
+        
+        layout.setHistoryLimit(0);
+        assertFalse(layout.canUndo());
+        assertFalse(layout.checkpoint());
+    }
+    
+    @Test
+    @DisplayName("Should find the items intersecting a range of rows")
+    void testItemsInRows() {
+        GridLayout layout = new GridLayout(12, 30);
+        layout.setCompact(false);
+        layout.putItem(GridItemConfig.at("a", 0, 0, 4, 2));
+        layout.putItem(GridItemConfig.at("b", 4, 1, 4, 10));
+        layout.putItem(GridItemConfig.at("c", 0, 5, 4, 1));
+        layout.putItem(GridItemConfig.at("d", 8, 20, 4, 3));
+        
+        assertEquals(List.of("a", "b"), idsOf(layout.getItemsInRows(0, 1)));
+        assertEquals(List.of("b", "c"), idsOf(layout.getItemsInRows(2, 5)));
+        assertEquals(List.of("d"), idsOf(layout.getItemsInRows(22, 100)));
+        assertTrue(layout.getItemsInRows(11, 19).isEmpty());
+        assertTrue(layout.getItemsInRows(5, 4).isEmpty());
+        
+        GridLayout copy = layout.copy();
+        layout.putItem(GridItemConfig.at("d", 8, 3, 4, 3));
+        layout.removeItem("b");
+        assertEquals(List.of("d", "c"), idsOf(layout.getItemsInRows(2, 5)));
+        assertEquals(List.of("b", "c"), idsOf(copy.getItemsInRows(2, 5)));
+        
+        // Compaction moves items up and the index follows
+        layout.setCompact(true);
+        assertEquals(List.of("a", "d", "c"), idsOf(layout.getItemsInRows(0, 2)));
+        
+        // Same answers as a full scan after many random changes
+        Random random = new Random(7);
+        for (int i = 0; i < 2_000; i++) {
+            String id = "item" + random.nextInt(100);
+            if (random.nextInt(4) == 0) {
+                layout.removeItem(id);
+            } else {
+                layout.putItem(GridItemConfig.at(id, random.nextInt(10), random.nextInt(60), 1 + random.nextInt(3), 1 + random.nextInt(4)));
+            }
+            if (i % 100 == 0) {
+                layout.setCompact(random.nextBoolean());
+            }
+            int first = random.nextInt(70);
+            int last = first + random.nextInt(15);
+            List<String> expected = new ArrayList<>();
+            for (GridItemConfig item : layout.getItems()) {
+                if (item.getY() <= last && item.getY() + item.getH() > first) {
+                    expected.add(item.getId());
+                }
+            }
+            List<String> found = idsOf(layout.getItemsInRows(first, last));
+            assertEquals(expected.size(), found.size());
+            assertTrue(found.containsAll(expected));
+        }
+    }
+    
+    private static List<String> idsOf(List<GridItemConfig> items) {
+        List<String> ids = new ArrayList<>();
+        items.forEach(item -> ids.add(item.getId()));
+        return ids;
+    }
+    
+    @Test
+    @DisplayName("Should behave the same with packed item storage")
+    void testPackedStorageMatchesObjects() {
+        GridLayout objects = new GridLayout(12, 30);
+        GridLayout packed = new GridLayout(12, 30, GridLayout.ItemStorage.PACKED);
+        assertEquals(GridLayout.ItemStorage.PACKED, packed.getItemStorage());
+        
+        Random random = new Random(3);
+        for (int i = 0; i < 2_000; i++) {
+            String id = "item" + random.nextInt(150);
+            if (random.nextInt(4) == 0) {
+                assertEquals(objects.removeItem(id), packed.removeItem(id));
+            } else {
+                GridItemConfig item = GridItemConfig.at(id, random.nextInt(10), random.nextInt(20), 1 + random.nextInt(3), 1 + random.nextInt(3));
+                if (random.nextBoolean()) {
+                    item.setMinW(1);
+                    item.setMaxH(5);
+                }
+                item.setStatic(random.nextInt(10) == 0);
+                // Copy first: the default storage keeps (and compacts) the instance itself
+                packed.putItem(copyOf(item));
+                objects.putItem(item);
+            }
+        }
+        
+        assertEquals(objects.getItems(), packed.getItems());
+        assertEquals(objects.getItemIds(), packed.getItemIds());
+        assertEquals(LayoutSerializer.itemsToJson(objects), LayoutSerializer.itemsToJson(packed));
+        assertEquals(LayoutSerializer.itemsToJson(objects), LayoutSerializer.itemsToJson(packed.copy()));
+    }
+    
+    @Test
+    @DisplayName("Should expose packed items as views that write through")
+    void testPackedStorageViews() {
+        GridLayout layout = new GridLayout(12, 30, GridLayout.ItemStorage.PACKED);
+        layout.setCompact(false);
+        GridItemConfig original = GridItemConfig.at("a", 0, 0, 4, 3);
+        layout.putItem(original);
+        layout.putItem(GridItemConfig.at("b", 4, 0, 4, 3));
+        
+        GridItemConfig view = layout.getItem("a");
+        assertNotSame(original, view);
+        assertEquals(original, view);
+        assertEquals(view, layout.getItem("a"));
+        
+        view.setX(6);
+        view.setMaxW(8);
+        assertEquals(6, layout.getItem("a").getX());
+        assertEquals(8, layout.getItem("a").getMaxW());
+        assertEquals(0, original.getX());
+        assertThrows(IllegalStateException.class, () -> view.setId("c"));
+        
+        GridLayout copy = layout.copy();
+        copy.getItem("a").setX(1);
+        assertEquals(6, layout.getItem("a").getX());
+        
+        // A view follows its item when removed slots are compacted
+        GridItemConfig b = layout.getItem("b");
+        for (int i = 0; i < 40; i++) {
+            layout.putItem(GridItemConfig.at("tmp" + i, 0, 10 + i, 1, 1));
+        }
+        for (int i = 0; i < 40; i++) {
+            layout.removeItem("tmp" + i);
+        }
+        b.setY(2);
+        assertEquals(2, layout.getItem("b").getY());
+        assertEquals(4, b.getX());
+        
+        // A removed item is returned as a plain copy; its views are invalid
+        GridItemConfig removed = layout.removeItem("a");
+        assertNotSame(view, removed);
+        assertEquals(6, removed.getX());
+        removed.setX(2);
+        assertEquals(2, removed.getX());
+        assertThrows(IllegalStateException.class, view::getX);
+        assertFalse(layout.hasItem("a"));
+        assertEquals(1, layout.size());
+    }
+    
+    private static GridItemConfig copyOf(GridItemConfig item) {
+        GridItemConfig copy = GridItemConfig.at(item.getId(), item.getX(), item.getY(), item.getW(), item.getH());
+        copy.setMinW(item.getMinW());
+        copy.setMinH(item.getMinH());
+        copy.setMaxW(item.getMaxW());
+        copy.setMaxH(item.getMaxH());
+        copy.setStatic(item.isStatic());
+        copy.setDraggable(item.isDraggable());
+        copy.setResizable(item.isResizable());
+        return copy;
+    }
 }
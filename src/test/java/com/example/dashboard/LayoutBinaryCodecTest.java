@@ -0,0 +1,128 @@
+package com.example.dashboard;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LayoutBinaryCodec
+ */
+@DisplayName("LayoutBinaryCodec Tests")
+class LayoutBinaryCodecTest {
+
+    private GridLayout layout;
+
+    @BeforeEach
+    void setUp() {
+        layout = new GridLayout(12, 30);
+        layout.setCompact(false);
+
+        GridItemConfig item1 = new GridItemConfig("widget-1", 0, 0, 4, 3);
+        item1.setMinW(2);
+        item1.setMaxH(6);
+
+        GridItemConfig item2 = new GridItemConfig("widget-2", 4, 2, 4, 3);
+        item2.setStatic(true);
+
+        GridItemConfig item3 = new GridItemConfig("w\u00eddget-\ud83d\ude00", 8, 300, 4, 3);
+        item3.setDraggable(false);
+        item3.setResizable(false);
+
+        layout.putItem(item1);
+        layout.putItem(item2);
+        layout.putItem(item3);
+    }
+
+    @Test
+    @DisplayName("Should decode to the same layout as the JSON form")
+    void testRoundTripMatchesJson() {
+        GridLayout fromBytes = LayoutBinaryCodec.fromBytes(LayoutBinaryCodec.toBytes(layout));
+        GridLayout fromJson = LayoutSerializer.fromJson(LayoutSerializer.toJson(layout));
+
+        assertEquals(LayoutSerializer.toJson(fromJson), LayoutSerializer.toJson(fromBytes));
+        for (String id : layout.getItemIds()) {
+            assertEquals(layout.getItem(id), fromBytes.getItem(id));
+        }
+    }
+
+    @Test
+    @DisplayName("Should encode a snapshot to the same bytes as its layout")
+    void testSnapshotEncoding() {
+        layout.getSnapshot();
+        layout.removeItem("widget-1");
+        layout.putItem(new GridItemConfig("widget-1", 0, 6, 2, 2));
+        layout.setCompactType("horizontal");
+
+        assertArrayEquals(LayoutBinaryCodec.toBytes(layout), LayoutBinaryCodec.toBytes(layout.getSnapshot()));
+    }
+
+    @Test
+    @DisplayName("Should preserve layout properties and unusual values")
+    void testLayoutProperties() {
+        GridLayout custom = new GridLayout(24, 10);
+        custom.setCompactType("diagonal");
+        custom.setRevision(Long.MAX_VALUE - 5);
+        custom.putResolvedItem(new GridItemConfig("a", -3, Integer.MAX_VALUE, 1, 1));
+
+        GridLayout decoded = LayoutBinaryCodec.fromBytes(LayoutBinaryCodec.toBytes(custom));
+
+        assertEquals(24, decoded.getColumns());
+        assertEquals(10, decoded.getRowHeight());
+        assertEquals("diagonal", decoded.getCompactType());
+        assertEquals(LayoutSerializer.fromJson(LayoutSerializer.toJson(custom)).getRevision(), decoded.getRevision());
+        assertEquals(custom.getItem("a"), decoded.getItem("a"));
+
+    }
+
+    @Test
+    @DisplayName("Should decode a null compact type the same way as the JSON form, which leaves it out")
+    void testNullCompactTypeMatchesJson() {
+        layout.setCompactType(null);
+
+        String json = LayoutSerializer.toJson(layout);
+        GridLayout fromBytes = LayoutBinaryCodec.fromBytes(LayoutBinaryCodec.toBytes(layout));
+        GridLayout fromJson = LayoutSerializer.fromJson(json);
+
+        assertFalse(json.contains("compactType"));
+        assertEquals(fromJson.getCompactType(), fromBytes.getCompactType());
+        assertEquals(LayoutSerializer.toJson(fromJson), LayoutSerializer.toJson(fromBytes));
+    }
+
+    @Test
+    @DisplayName("Should be much smaller than the JSON form")
+    void testSize() {
+        GridLayout large = new GridLayout();
+        large.setCompact(false);
+        for (int i = 0; i < 200; i++) {
+            large.putItem(new GridItemConfig("widget-" + i, (i * 4) % 12, (i / 3) * 3, 4, 3));
+        }
+
+        int binary = LayoutBinaryCodec.toBytes(large).length;
+        int json = LayoutSerializer.toJson(large).getBytes(StandardCharsets.UTF_8).length;
+
+        assertTrue(binary * 5 < json, "binary " + binary + " bytes vs json " + json + " bytes");
+    }
+
+    @Test
+    @DisplayName("Should reject foreign or truncated data")
+    void testInvalidData() {
+        assertEquals(0, LayoutBinaryCodec.fromBytes(null).size());
+        assertEquals(0, LayoutBinaryCodec.fromBytes(new byte[0]).size());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> LayoutBinaryCodec.fromBytes("{}".getBytes(StandardCharsets.UTF_8)));
+
+        byte[] bytes = LayoutBinaryCodec.toBytes(layout);
+        byte[] futureVersion = bytes.clone();
+        futureVersion[1] = (byte) (LayoutBinaryCodec.VERSION + 1);
+        assertThrows(IllegalArgumentException.class, () -> LayoutBinaryCodec.fromBytes(futureVersion));
+
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+        assertThrows(IllegalArgumentException.class, () -> LayoutBinaryCodec.fromBytes(truncated));
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.dashboard;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LayoutCache and CachingLayoutStore
+ */
+@DisplayName("LayoutCache Tests")
+class LayoutCacheTest {
+
+    private static LayoutSnapshot layoutWith(int items) {
+        GridLayout layout = new GridLayout(12, 30);
+        layout.setCompact(false);
+        for (int i = 0; i < items; i++) {
+            layout.putItem(new GridItemConfig("item-" + i, 0, i, 2, 1));
+        }
+        return layout.getSnapshot();
+    }
+
+    @Test
+    @DisplayName("Should evict least recently used layouts by weight")
+    void testEviction() {
+        LayoutCache cache = new LayoutCache(11);
+        LayoutKey a = LayoutKey.of("shared", "a");
+        LayoutKey b = LayoutKey.of("shared", "b");
+        LayoutKey c = LayoutKey.of("shared", "c");
+
+        cache.put(a, layoutWith(3));
+        cache.put(b, layoutWith(3));
+        assertEquals(8, cache.getWeight());
+        assertNotNull(cache.get(a));
+
+        cache.put(c, layoutWith(3));
+
+        assertNotNull(cache.get(a));
+        assertNull(cache.get(b));
+        assertNotNull(cache.get(c));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        cache.put(b, layoutWith(20));
+        assertNull(cache.get(b));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    @DisplayName("Should only hit when the cached revision matches")
+    void testRevisionLookup() {
+        LayoutCache cache = new LayoutCache();
+        LayoutKey key = LayoutKey.of("shared", "template");
+        LayoutSnapshot snapshot = layoutWith(2);
+
+        cache.put(key, snapshot);
+
+        assertSame(snapshot, cache.get(key, snapshot.getRevision()));
+        assertNull(cache.get(key, snapshot.getRevision() + 1));
+        cache.invalidate(key);
+        assertNull(cache.get(key));
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    @DisplayName("Should decode a stored layout once and hand out independent copies")
+    void testCachingStore() throws IOException {
+        int[] loads = new int[1];
+        InMemoryLayoutStore backing = new InMemoryLayoutStore();
+        LayoutStore counting = new LayoutStore() {
+            @Override
+            public void save(LayoutKey key, LayoutSnapshot snapshot) {
+                backing.save(key, snapshot);
+            }
+
+            @Override
+            public GridLayout load(LayoutKey key) {
+                loads[0]++;
+                return backing.load(key);
+            }
+
+            @Override
+            public List<LayoutKey> list(String user) {
+                return backing.list(user);
+            }
+
+            @Override
+            public boolean delete(LayoutKey key) {
+                return backing.delete(key);
+            }
+        };
+        LayoutKey key = LayoutKey.of("shared", "template");
+        backing.save(key, layoutWith(3));
+
+        CachingLayoutStore store = new CachingLayoutStore(counting);
+        GridLayout first = store.load(key);
+        GridLayout second = store.load(key);
+
+        assertEquals(1, loads[0]);
+        assertNotSame(first, second);
+        assertSame(first.getSnapshot(), second.getSnapshot());
+
+        first.putItem(new GridItemConfig("item-0", 5, 0, 2, 1));
+        assertEquals(0, second.getItem("item-0").getX());
+        assertEquals(0, store.load(key).getItem("item-0").getX());
+
+        // Write-through: the saved layout is served without loading again
+        store.save(key, first.getSnapshot());
+        assertEquals(5, store.load(key).getItem("item-0").getX());
+        assertEquals(1, loads[0]);
+
+        assertTrue(store.delete(key));
+        assertNull(store.load(key));
+        assertEquals(2, loads[0]);
+    }
+}
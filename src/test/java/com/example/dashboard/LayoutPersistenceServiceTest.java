@@ -0,0 +1,225 @@
+package com.example.dashboard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LayoutPersistenceService
+ */
+@DisplayName("LayoutPersistenceService Tests")
+class LayoutPersistenceServiceTest {
+
+    private ScheduledExecutorService executor;
+    private RecordingStore store;
+    private GridLayout layout;
+
+    private static final LayoutKey MAIN = LayoutKey.of("alice", "main");
+    private static final LayoutKey OTHER = LayoutKey.of("alice", "other");
+
+    /**
+     * Store remembering the revisions written per key
+     */
+    private static class RecordingStore implements LayoutStore {
+        final InMemoryLayoutStore delegate = new InMemoryLayoutStore();
+        final List<String> writes = new ArrayList<>();
+        final CountDownLatch firstWrite = new CountDownLatch(1);
+        volatile boolean failing;
+
+        @Override
+        public void save(LayoutKey key, LayoutSnapshot snapshot) throws IOException {
+            if (failing) {
+                throw new IOException("Disk full");
+            }
+            delegate.save(key, snapshot);
+            synchronized (writes) {
+                writes.add(key + "@" + snapshot.getRevision());
+            }
+            firstWrite.countDown();
+        }
+
+        @Override
+        public GridLayout load(LayoutKey key) {
+            return delegate.load(key);
+        }
+
+        @Override
+        public List<LayoutKey> list(String user) {
+            return delegate.list(user);
+        }
+
+        @Override
+        public boolean delete(LayoutKey key) {
+            return delegate.delete(key);
+        }
+
+        List<String> writes() {
+            synchronized (writes) {
+                return new ArrayList<>(writes);
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        store = new RecordingStore();
+        layout = new GridLayout(12, 30);
+        layout.setCompact(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should coalesce pending saves into one write of the latest revision")
+    void testCoalescing() throws IOException {
+        LayoutPersistenceService service = new LayoutPersistenceService(store, Duration.ofHours(1), executor);
+
+        for (int i = 0; i < 5; i++) {
+            layout.putItem(new GridItemConfig("item-" + i, i, 0, 1, 1));
+            service.save(MAIN, layout.getSnapshot());
+        }
+        assertTrue(store.writes().isEmpty());
+
+        service.flush();
+
+        assertEquals(List.of("alice/main@" + layout.getRevision()), store.writes());
+        GridLayout loaded = service.load(MAIN);
+        assertEquals(5, loaded.size());
+        assertEquals(4, loaded.getItem("item-4").getX());
+    }
+
+    @Test
+    @DisplayName("Should ignore snapshots older than the one already written")
+    void testLastWriterWins() {
+        LayoutPersistenceService service = new LayoutPersistenceService(store, Duration.ofHours(1), executor);
+
+        layout.putItem(new GridItemConfig("a", 0, 0, 1, 1));
+        LayoutSnapshot older = layout.getSnapshot();
+        layout.putItem(new GridItemConfig("b", 1, 0, 1, 1));
+        LayoutSnapshot newer = layout.getSnapshot();
+
+        CompletableFuture<Boolean> newerSaved = service.save(MAIN, newer);
+        assertFalse(service.save(MAIN, older).join());
+        service.flush();
+        assertFalse(service.save(MAIN, older).join());
+        service.save(OTHER, older);
+        service.flush();
+        assertTrue(newerSaved.join());
+
+        List<String> writes = store.writes();
+        assertEquals(2, writes.size());
+        assertEquals("alice/main@" + newer.getRevision(), writes.get(0));
+        assertEquals("alice/other@" + older.getRevision(), writes.get(1));
+    }
+
+    @Test
+    @DisplayName("Should write after the debounce period on a worker thread")
+    void testDebouncedWrite() throws InterruptedException {
+        LayoutPersistenceService service = new LayoutPersistenceService(store, Duration.ofMillis(20), executor);
+
+        layout.putItem(new GridItemConfig("a", 0, 0, 1, 1));
+        service.save(MAIN, layout.getSnapshot());
+
+        assertTrue(store.firstWrite.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("alice/main@" + layout.getRevision()), store.writes());
+    }
+
+    @Test
+    @DisplayName("Should write pending saves on close and reject saves afterwards")
+    void testClose() {
+        LayoutPersistenceService service = new LayoutPersistenceService(store, Duration.ofHours(1), executor);
+
+        layout.putItem(new GridItemConfig("a", 0, 0, 1, 1));
+        service.save(MAIN, layout.getSnapshot());
+        service.close();
+
+        assertEquals(1, store.writes().size());
+        assertThrows(IllegalStateException.class, () -> service.save(MAIN, layout.getSnapshot()));
+    }
+
+    @Test
+    @DisplayName("Should report failed writes and allow saving the revision again")
+    void testWriteFailure() {
+        LayoutPersistenceService service = new LayoutPersistenceService(store, Duration.ofHours(1), executor);
+        List<String> failures = new ArrayList<>();
+        service.setErrorHandler((key, e) -> failures.add(key + ": " + e.getMessage()));
+
+        layout.putItem(new GridItemConfig("a", 0, 0, 1, 1));
+        store.failing = true;
+        CompletableFuture<Boolean> failed = service.save(MAIN, layout.getSnapshot());
+        service.flush();
+
+        assertEquals(List.of("alice/main: Disk full"), failures);
+        CompletionException thrown = assertThrows(CompletionException.class, failed::join);
+        assertEquals("Disk full", thrown.getCause().getMessage());
+
+        store.failing = false;
+        service.save(MAIN, layout.getSnapshot());
+        service.flush();
+
+        assertEquals(List.of("alice/main@" + layout.getRevision()), store.writes());
+    }
+
+    @Test
+    @DisplayName("Should write a layout at a lower revision than another layout saved under the key")
+    void testSavesOfDifferentLayouts() throws IOException {
+        LayoutPersistenceService service = new LayoutPersistenceService(store, Duration.ofHours(1), executor);
+
+        for (int i = 0; i < 5; i++) {
+            layout.putItem(new GridItemConfig("item-" + i, i, 0, 1, 1));
+        }
+        service.save(MAIN, layout.getSnapshot());
+        service.flush();
+
+        // A second grid (e.g. another session) starts over at a lower revision
+        GridLayout second = new GridLayout(12, 30);
+        second.setCompact(false);
+        second.putItem(new GridItemConfig("item-0", 7, 0, 1, 1));
+        assertTrue(second.getRevision() < layout.getRevision());
+
+        CompletableFuture<Boolean> saved = service.save(MAIN, second.getSnapshot());
+        service.flush();
+
+        assertTrue(saved.join());
+        assertEquals(List.of("alice/main@" + layout.getRevision(), "alice/main@" + second.getRevision()),
+                store.writes());
+        assertEquals(7, service.load(MAIN).getItem("item-0").getX());
+    }
+
+    @Test
+    @DisplayName("Should drop the state of a key once its writes completed")
+    void testIdleKeysEvicted() {
+        LayoutPersistenceService service = new LayoutPersistenceService(store, Duration.ofHours(1), executor);
+
+        layout.putItem(new GridItemConfig("a", 0, 0, 1, 1));
+        LayoutSnapshot snapshot = layout.getSnapshot();
+        service.save(MAIN, snapshot);
+        service.save(OTHER, snapshot);
+        assertEquals(2, service.activeKeys());
+
+        service.flush();
+        assertEquals(0, service.activeKeys());
+
+        // The written revision is still remembered for the layout
+        assertFalse(service.save(MAIN, snapshot).join());
+        assertEquals(0, service.activeKeys());
+    }
+}
@@ -1,9 +1,16 @@
 package com.example.dashboard;
 
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -107,8 +114,10 @@ class LayoutSerializerTest {
     void testUpdateItemsFromJson() {
         // Create a modified items JSON
         String itemsJson = "[{\"i\":\"item1\",\"x\":5,\"y\":5,\"w\":6,\"h\":4}]";
+        long revision = layout.getRevision();
         
-        LayoutSerializer.updateItemsFromJson(layout, itemsJson);
+        assertEquals(1, LayoutSerializer.updateItemsFromJson(layout, itemsJson));
+        assertEquals(revision + 1, layout.getRevision());
         
         GridItemConfig updated = layout.getItem("item1");
         assertNotNull(updated);
@@ -122,6 +131,44 @@ class LayoutSerializerTest {
         assertTrue(layout.hasItem("item3"));
     }
     
+    @Test
+    @DisplayName("Should exchange items and patches as structured JSON values")
+    void testStructuredJson() {
+        JsonArray items = LayoutSerializer.itemsToJsonArray(layout);
+        assertEquals(3, items.length());
+        assertEquals("item1", items.getObject(0).getString("i"));
+        assertEquals(4, items.getObject(0).getNumber("w"));
+        assertFalse(items.getObject(0).hasKey("maxW"));
+        assertTrue(items.getObject(0).getBoolean("isDraggable"));
+        
+        JsonObject moved = Json.createObject();
+        moved.put("i", "item1");
+        moved.put("x", 5);
+        moved.put("y", 5);
+        moved.put("w", 6);
+        moved.put("h", 4);
+        moved.put("minW", Json.createNull());
+        JsonArray update = Json.createArray();
+        update.set(0, moved);
+        update.set(1, "not an item");
+        
+        long base = layout.getRevision();
+        assertEquals(1, layout.updateResolvedItems(LayoutSerializer.itemsFromJson(update)));
+        assertTrue(LayoutSerializer.itemsFromJson(null).isEmpty());
+        GridItemConfig updated = layout.getItem("item1");
+        assertEquals(5, updated.getX());
+        assertEquals(4, updated.getH());
+        assertNull(updated.getMinW());
+        assertTrue(updated.isDraggable());
+        
+        layout.removeItem("item2");
+        JsonObject patch = LayoutSerializer.changesToJsonObject(layout.changesSince(base));
+        assertEquals(base, (long) patch.getNumber("base"));
+        assertEquals(layout.getRevision(), (long) patch.getNumber("revision"));
+        assertEquals("item1", patch.getArray("items").getObject(0).getString("i"));
+        assertEquals("item2", patch.getArray("removed").getString(0));
+    }
+    
     @Test
     @DisplayName("Should handle empty layout")
     void testEmptyLayout() {
@@ -199,4 +246,40 @@ class LayoutSerializerTest {
             assertEquals(original.getH(), roundtripped.getH());
         }
     }
+    
+    @Test
+    @DisplayName("Should write to and read from streams without an intermediate string")
+    void testStreamRoundTrip() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LayoutSerializer.writeJson(layout, out);
+        
+        assertEquals(LayoutSerializer.toJson(layout), out.toString(StandardCharsets.UTF_8));
+        
+        GridLayout deserialized = LayoutSerializer.readJson(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(layout.size(), deserialized.size());
+        assertEquals(layout.getItem("item1"), deserialized.getItem("item1"));
+        assertTrue(deserialized.getItem("item2").isStatic());
+        
+        GridLayout fromEmptyStream = LayoutSerializer.readJson(new ByteArrayInputStream(new byte[0]));
+        assertEquals(0, fromEmptyStream.size());
+    }
+    
+    @Test
+    @DisplayName("Should read layout properties regardless of field order")
+    void testFieldOrderIndependent() {
+        String json = "{\"items\":[{\"i\":\"a\",\"x\":2,\"y\":1,\"w\":3,\"h\":2,\"extra\":{\"n\":[1]}}],"
+                + "\"revision\":7,\"columns\":6,\"compactType\":null}";
+        
+        GridLayout deserialized = LayoutSerializer.fromJson(json);
+        
+        assertEquals(6, deserialized.getColumns());
+        assertNull(deserialized.getCompactType());
+        assertEquals(8, deserialized.getRevision()); // 7 + one item
+        GridItemConfig item = deserialized.getItem("a");
+        assertNotNull(item);
+        assertEquals(2, item.getX());
+        assertEquals(1, item.getY());
+        assertEquals(3, item.getW());
+        assertEquals(2, item.getH());
+    }
 }
@@ -0,0 +1,132 @@
+package com.example.dashboard;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PersistentItemMap
+ */
+@DisplayName("PersistentItemMap Tests")
+class PersistentItemMapTest {
+
+    private static LayoutItem item(String id, int x) {
+        return LayoutItem.of(GridItemConfig.at(id, x, 0, 1, 1), 0);
+    }
+
+    @Test
+    @DisplayName("Should keep earlier versions unchanged")
+    void testPersistence() {
+        PersistentItemMap empty = PersistentItemMap.EMPTY;
+        PersistentItemMap one = empty.put(item("a", 1));
+        PersistentItemMap two = one.put(item("b", 2));
+        PersistentItemMap updated = two.put(item("a", 3));
+        PersistentItemMap removed = updated.remove("b");
+
+        assertEquals(0, empty.size());
+        assertEquals(1, one.size());
+        assertEquals(1, one.get("a").getX());
+        assertNull(one.get("b"));
+        assertEquals(2, two.size());
+        assertEquals(3, updated.get("a").getX());
+        assertEquals(1, two.get("a").getX());
+        assertEquals(1, removed.size());
+        assertNull(removed.get("b"));
+        assertSame(removed, removed.remove("missing"));
+
+        LayoutItem same = two.get("a");
+        assertSame(two, two.put(same));
+    }
+
+    @Test
+    @DisplayName("Should handle IDs with identical hash codes")
+    void testHashCollisions() {
+        // "Aa" and "BB" have the same String.hashCode()
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        PersistentItemMap map = PersistentItemMap.EMPTY
+                .put(item("Aa", 1))
+                .put(item("BB", 2))
+                .put(item("AaAa", 3))
+                .put(item("BBBB", 4))
+                .put(item("AaBB", 5));
+
+        assertEquals(5, map.size());
+        assertEquals(1, map.get("Aa").getX());
+        assertEquals(2, map.get("BB").getX());
+        assertEquals(5, map.get("AaBB").getX());
+
+        PersistentItemMap removed = map.remove("Aa").remove("AaAa");
+        assertEquals(3, removed.size());
+        assertNull(removed.get("Aa"));
+        assertEquals(2, removed.get("BB").getX());
+        assertEquals(4, removed.get("BBBB").getX());
+    }
+
+    @Test
+    @DisplayName("Should behave like a HashMap under random updates")
+    void testRandomOperations() {
+        Random random = new Random(7);
+        Map<String, LayoutItem> expected = new HashMap<>();
+        PersistentItemMap map = PersistentItemMap.EMPTY;
+
+        for (int i = 0; i < 20_000; i++) {
+            String id = "item-" + random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(id);
+                map = map.remove(id);
+            } else {
+                LayoutItem item = item(id, i);
+                expected.put(id, item);
+                map = map.put(item);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (Map.Entry<String, LayoutItem> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), map.get(entry.getKey()));
+        }
+        List<LayoutItem> visited = new ArrayList<>();
+        map.forEach(visited::add);
+        assertEquals(expected.size(), visited.size());
+        assertTrue(visited.containsAll(expected.values()));
+    }
+
+    @Test
+    @DisplayName("Should report exactly the items that differ between two versions")
+    void testDiff() {
+        PersistentItemMap base = PersistentItemMap.EMPTY;
+        for (int i = 0; i < 500; i++) {
+            base = base.put(item("item-" + i, i));
+        }
+        PersistentItemMap changed = base
+                .put(item("item-7", 70))
+                .remove("item-42")
+                .put(item("new", 1))
+                .put(base.get("item-9"));
+
+        Map<String, LayoutItem[]> diff = new HashMap<>();
+        PersistentItemMap.diff(base, changed, (from, to) ->
+                diff.put(from != null ? from.getId() : to.getId(), new LayoutItem[] {from, to}));
+
+        assertEquals(3, diff.size());
+        assertEquals(7, diff.get("item-7")[0].getX());
+        assertEquals(70, diff.get("item-7")[1].getX());
+        assertNull(diff.get("item-42")[1]);
+        assertNull(diff.get("new")[0]);
+
+        List<String> none = new ArrayList<>();
+        PersistentItemMap.diff(changed, changed, (from, to) -> none.add(from.getId()));
+        assertTrue(none.isEmpty());
+
+        List<String> all = new ArrayList<>();
+        PersistentItemMap.diff(PersistentItemMap.EMPTY, base, (from, to) -> all.add(to.getId()));
+        assertEquals(500, all.size());
+    }
+}